@@ -7,6 +7,8 @@ import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrimaryKeyJoinColumn;
+import jakarta.persistence.SecondaryTable;
 
 import java.util.Date;
 import java.util.List;
@@ -15,6 +17,7 @@ import java.util.UUID;
 import lombok.Data;
 import org.folio.des.domain.dto.ExportType;
 import org.folio.des.domain.dto.ExportTypeSpecificParameters;
+import org.folio.des.domain.dto.JobDispatchStatus;
 import org.folio.des.domain.dto.JobStatus;
 import org.folio.des.domain.dto.IdentifierType;
 import org.folio.des.domain.dto.EntityType;
@@ -25,9 +28,13 @@ import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.ExitStatus;
 
 @Entity
+@SecondaryTable(name = Job.PROGRESS_TABLE, pkJoinColumns = @PrimaryKeyJoinColumn(name = "job_id"))
 @Data
 public class Job {
 
+  /** Narrow table of the progress, updated many times per job without rewriting the job row. */
+  public static final String PROGRESS_TABLE = "job_progress";
+
   @Id
   @GeneratedValue(generator = "UUID")
   @GenericGenerator(name = "UUID", strategy = "org.folio.des.repository.generator.CustomUUIDGenerator")
@@ -93,8 +100,32 @@ public class Job {
   @Enumerated(EnumType.STRING)
   private EntityType entityType;
 
+  /**
+   * Delivery of the last command of the job to Kafka, set by the job command outbox relay.
+   */
+  @Enumerated(EnumType.STRING)
+  private JobDispatchStatus dispatchStatus;
+
+  /**
+   * Hash of the parameters deciding the result of the job, set for the job types whose results can be reused.
+   */
+  private String parametersHash;
+
+  /**
+   * In-flight job with the same parameters this job waits for instead of being exported, its result is copied to this
+   * job when it completes.
+   */
+  @Column(updatable = false)
+  private UUID leaderJobId;
+
   @Type(JsonBinaryType.class)
-  @Column(columnDefinition = "jsonb")
+  @Column(table = PROGRESS_TABLE, columnDefinition = "jsonb")
   private Progress progress;
 
+  /**
+   * Order of the last execution update applied, written only by the conditional update of the job.
+   */
+  @Column(insertable = false, updatable = false)
+  private Long updateSequence;
+
 }
@@ -0,0 +1,62 @@
+package org.folio.de.entity;
+
+import io.hypersistence.utils.hibernate.type.json.JsonBinaryType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+
+import lombok.Data;
+import org.hibernate.annotations.Type;
+
+/**
+ * Kafka record written in the transaction of the job change it belongs to and sent once committed. The payload is
+ * serialized and the FOLIO headers are taken when the record is written. The token is kept encrypted apart from the
+ * headers, the relay adds it when sending the record.
+ */
+@Entity
+@Table(name = "job_command_outbox")
+@Data
+public class JobCommandOutboxMessage {
+
+  /** Order of the records. */
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(updatable = false, nullable = false)
+  private Long id;
+
+  @Column(nullable = false)
+  private String topic;
+
+  @Column(nullable = false)
+  private String messageKey;
+
+  @Column(nullable = false, columnDefinition = "bytea")
+  private byte[] payload;
+
+  @Type(JsonBinaryType.class)
+  @Column(columnDefinition = "jsonb")
+  private Map<String, String> headers;
+
+  /** Okapi token of the request that wrote the record, encrypted. */
+  private String encryptedToken;
+
+  @Column(nullable = false)
+  private Date createdDate;
+
+  /** Job whose dispatch status the delivery updates, if the record is the command of a job. */
+  private UUID jobId;
+
+  /** Failed deliveries so far. */
+  @Column(nullable = false)
+  private int attempts;
+
+  private String lastError;
+
+}
@@ -0,0 +1,32 @@
+package org.folio.de.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import java.util.Date;
+import java.util.UUID;
+
+import lombok.Data;
+
+/**
+ * Idempotency key of a job submission, a retried submission with the same key returns the job created first.
+ */
+@Entity
+@Data
+public class JobIdempotencyKey {
+
+  @Id
+  @Column(updatable = false, nullable = false)
+  private String idempotencyKey;
+
+  /** The job created with the key, empty until the creating transaction saved it. */
+  private UUID jobId;
+
+  /** Hash of the submitted job, a retry with the key must submit the same job. */
+  private String requestHash;
+
+  @Column(nullable = false)
+  private Date createdDate;
+
+}
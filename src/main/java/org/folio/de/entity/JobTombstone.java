@@ -0,0 +1,41 @@
+package org.folio.de.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Transient;
+
+import java.util.Date;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Marks a deleted job, so clients syncing job changes learn about the deletion.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobTombstone implements Persistable<UUID> {
+
+  @Id
+  @Column(updatable = false, nullable = false)
+  private UUID id;
+
+  @Column(nullable = false)
+  private Date deletedDate;
+
+  /**
+   * Tombstones are only inserted, so saving them needs no select to tell inserts from updates.
+   */
+  @Override
+  @Transient
+  public boolean isNew() {
+    return true;
+  }
+
+}
@@ -7,11 +7,14 @@ import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrimaryKeyJoinColumn;
+import jakarta.persistence.SecondaryTable;
 import jakarta.persistence.Table;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
 import lombok.Data;
+import org.folio.de.entity.Job;
 import org.folio.des.domain.dto.EntityType;
 import org.folio.des.domain.dto.ExportType;
 import org.folio.des.domain.dto.IdentifierType;
@@ -25,6 +28,7 @@ import org.springframework.batch.core.ExitStatus;
 
 @Entity
 @Table(name = "job")
+@SecondaryTable(name = Job.PROGRESS_TABLE, pkJoinColumns = @PrimaryKeyJoinColumn(name = "job_id"))
 @Data
 public class LegacyJob {
 
@@ -97,6 +101,6 @@ public class LegacyJob {
   private EntityType entityType;
 
   @Type(JsonBinaryType.class)
-  @Column(columnDefinition = "jsonb")
+  @Column(table = Job.PROGRESS_TABLE, columnDefinition = "jsonb")
   private Progress progress;
 }
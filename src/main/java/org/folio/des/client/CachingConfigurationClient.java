@@ -0,0 +1,192 @@
+package org.folio.des.client;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.Data;
+import lombok.extern.log4j.Log4j2;
+import org.folio.des.domain.dto.ConfigurationCollection;
+import org.folio.des.domain.dto.ModelConfiguration;
+import org.folio.spring.FolioExecutionContext;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+/**
+ * Read-through cache of mod-configuration in front of the Feign client, so the export configurations read on every
+ * EDIFACT job, resend, configuration listing and job cleanup do not each cost a round trip through Okapi. Entries are
+ * kept per tenant, expire after a TTL and are invalidated by every write of this module. Concurrent misses of the same
+ * entry wait for one remote call. Every caller gets its own copy of the cached value. A TTL of zero turns the cache
+ * off.
+ *
+ * <p>The invalidation is local: a write through another instance of this module, or straight to mod-configuration,
+ * is seen here once the TTL has passed.
+ */
+@Component
+@Primary
+@Log4j2
+public class CachingConfigurationClient implements ConfigurationClient {
+
+  private final ConfigurationClient delegate;
+  private final FolioExecutionContext context;
+  private final ObjectMapper objectMapper;
+  private final boolean enabled;
+  private final AsyncCache<EntryKey, ModelConfiguration> entries;
+  private final AsyncCache<QueryKey, ConfigurationCollection> queries;
+  /** Writes by tenant, a load overlapping a write of its tenant is not kept. */
+  private final Map<String, AtomicLong> writes = new ConcurrentHashMap<>();
+
+  public CachingConfigurationClient(@Qualifier(ConfigurationClient.REMOTE) ConfigurationClient delegate,
+      FolioExecutionContext context, ObjectMapper objectMapper, @Value("${application.export-config-cache.ttl:60s}") Duration ttl,
+      @Value("${application.export-config-cache.max-size:1000}") long maxSize, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.context = context;
+    // null and empty values are kept, so a copy equals its original
+    this.objectMapper = objectMapper.copy().setSerializationInclusion(JsonInclude.Include.ALWAYS);
+    this.enabled = !ttl.isZero();
+    this.entries = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maxSize).recordStats().buildAsync();
+    this.queries = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maxSize).recordStats().buildAsync();
+    CaffeineCacheMetrics.monitor(meterRegistry, entries.synchronous(), "export-config-entries");
+    CaffeineCacheMetrics.monitor(meterRegistry, queries.synchronous(), "export-config-queries");
+  }
+
+  @Override
+  public ConfigurationCollection getConfigurations(String query, Integer limit) {
+    if (!enabled) {
+      return delegate.getConfigurations(query, limit);
+    }
+    return get(queries, new QueryKey(context.getTenantId(), query, limit), () -> delegate.getConfigurations(query, limit));
+  }
+
+  @Override
+  public ModelConfiguration getConfigById(String entryId) {
+    if (!enabled) {
+      return delegate.getConfigById(entryId);
+    }
+    return get(entries, new EntryKey(context.getTenantId(), entryId), () -> delegate.getConfigById(entryId));
+  }
+
+  @Override
+  public ModelConfiguration postConfiguration(ModelConfiguration config) {
+    try {
+      return delegate.postConfiguration(config);
+    } finally {
+      invalidate(config.getId());
+    }
+  }
+
+  @Override
+  public void putConfiguration(ModelConfiguration config, String entryId) {
+    try {
+      delegate.putConfiguration(config, entryId);
+    } finally {
+      invalidate(entryId);
+    }
+  }
+
+  @Override
+  public void deleteConfigById(String entryId) {
+    try {
+      delegate.deleteConfigById(entryId);
+    } finally {
+      invalidate(entryId);
+    }
+  }
+
+  /**
+   * Drops the cached configurations of all tenants.
+   */
+  public void invalidateAll() {
+    entries.synchronous().invalidateAll();
+    queries.synchronous().invalidateAll();
+  }
+
+  /**
+   * Returns a copy of the cached value or loads it on the calling thread, which carries the tenant and token of the
+   * request. Threads missing the same key meanwhile wait for this load, a failed load is not cached.
+   */
+  private <K extends TenantKey, V> V get(AsyncCache<K, V> cache, K key, Supplier<V> loader) {
+    var writesBefore = writes(key.getTenant()).get();
+    var load = new CompletableFuture<V>();
+    var value = cache.get(key, (k, executor) -> load);
+    if (value == load) {
+      try {
+        load.complete(loader.get());
+      } catch (RuntimeException e) {
+        load.completeExceptionally(e);
+      }
+      if (writes(key.getTenant()).get() != writesBefore) {
+        // the value may have been read before a write of this module
+        cache.synchronous().invalidate(key);
+      }
+    }
+    try {
+      return copy(value.join());
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <V> V copy(V value) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      return objectMapper.readValue(objectMapper.writeValueAsBytes(value), (Class<V>) value.getClass());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Can't copy cached configuration", e);
+    }
+  }
+
+  private void invalidate(String entryId) {
+    if (!enabled) {
+      return;
+    }
+    var tenant = context.getTenantId();
+    writes(tenant).incrementAndGet();
+    if (entryId != null) {
+      entries.synchronous().invalidate(new EntryKey(tenant, entryId));
+    }
+    // any query of the tenant may return the written entry
+    queries.synchronous().asMap().keySet().removeIf(key -> tenant.equals(key.getTenant()));
+    log.debug("Invalidated cached configurations of tenant {} after a write of entry {}.", tenant, entryId);
+  }
+
+  private AtomicLong writes(String tenant) {
+    return writes.computeIfAbsent(tenant, t -> new AtomicLong());
+  }
+
+  private interface TenantKey {
+    String getTenant();
+  }
+
+  @Data
+  private static class EntryKey implements TenantKey {
+    private final String tenant;
+    private final String entryId;
+  }
+
+  @Data
+  private static class QueryKey implements TenantKey {
+    private final String tenant;
+    private final String query;
+    private final Integer limit;
+  }
+}
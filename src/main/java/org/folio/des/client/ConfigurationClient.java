@@ -13,9 +13,16 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
-@FeignClient(name = "configurations/entries", configuration = FeignClientConfiguration.class)
+/**
+ * Client of mod-configuration, injected through {@link CachingConfigurationClient}.
+ */
+@FeignClient(name = "configurations/entries", qualifiers = ConfigurationClient.REMOTE, primary = false,
+  configuration = FeignClientConfiguration.class)
 public interface ConfigurationClient {
 
+  /** Qualifier of the Feign client calling mod-configuration. */
+  String REMOTE = "remoteConfigurationClient";
+
   @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
   ConfigurationCollection getConfigurations(@RequestParam("query") String query, @RequestParam("limit") Integer limit);
 
@@ -1,15 +1,18 @@
 package org.folio.des.config.kafka;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.folio.spring.FolioExecutionContext;
 import org.folio.spring.FolioModuleMetadata;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -42,6 +45,21 @@ public class KafkaConfiguration {
     return factory;
   }
 
+  /**
+   * Container factory of batch listeners. The FOLIO context is set up by the listener, a poll batch can hold the
+   * records of several tenants. Offsets are committed once the listener has returned.
+   */
+  @Bean
+  public <V> ConcurrentKafkaListenerContainerFactory<String, V> batchKafkaListenerContainerFactory(ConsumerFactory<String, V> cf) {
+    var factory = new ConcurrentKafkaListenerContainerFactory<String, V>();
+    factory.setConsumerFactory(cf);
+    factory.setBatchListener(true);
+    if (kafkaProperties.getListener().getAckMode() != null) {
+      factory.getContainerProperties().setAckMode(kafkaProperties.getListener().getAckMode());
+    }
+    return factory;
+  }
+
   @Bean
   public <V> ConsumerFactory<String, V> consumerFactory(ObjectMapper objectMapper, FolioModuleMetadata folioModuleMetadata) {
     Map<String, Object> props = new HashMap<>(kafkaProperties.buildConsumerProperties());
@@ -69,4 +87,25 @@ public class KafkaConfiguration {
   public <V> KafkaTemplate<String, V> kafkaTemplate(ProducerFactory<String, V> pf) {
     return new KafkaTemplate<>(pf);
   }
+
+  /**
+   * Template of the job command outbox relay. The records were serialized when written to the outbox, so they are sent
+   * as they are. The producer gives up on a record before the relay does: a record still retried by the producer after
+   * the relay has counted it as failed would be sent twice.
+   */
+  @Bean
+  public KafkaTemplate<String, byte[]> outboxKafkaTemplate(
+      @Value("${application.job-command-outbox.send-timeout:30s}") Duration sendTimeout) {
+    Map<String, Object> props = new HashMap<>(kafkaProperties.buildProducerProperties());
+    props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+    props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+    // blocking in send and delivering together take less than the send timeout
+    var deliveryTimeout = sendTimeout.dividedBy(2);
+    var linger = Long.parseLong(String.valueOf(props.getOrDefault(ProducerConfig.LINGER_MS_CONFIG, 0)));
+    props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, sendTimeout.dividedBy(3).toMillis());
+    props.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, (int) deliveryTimeout.toMillis());
+    // the producer requires the delivery timeout to cover the linger and one request
+    props.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, (int) (deliveryTimeout.toMillis() - linger));
+    return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+  }
 }
@@ -30,7 +30,7 @@ public class KafkaRecordInterceptor<V> implements RecordInterceptor<String, V> {
 
   @Override
   public ConsumerRecord<String, V> intercept(ConsumerRecord<String, V> consumerRecord, Consumer<String, V> consumer) {
-    Map<String, Collection<String>> okapiHeaders = headersToMap(consumerRecord.headers());
+    Map<String, Collection<String>> okapiHeaders = toOkapiHeaders(consumerRecord.headers());
 
     var defaultFolioExecutionContext = new DefaultFolioExecutionContext(folioModuleMetadata, okapiHeaders);
     FolioExecutionScopeExecutionContextManager.beginFolioExecutionContext(defaultFolioExecutionContext);
@@ -44,7 +44,13 @@ public class KafkaRecordInterceptor<V> implements RecordInterceptor<String, V> {
     RecordInterceptor.super.success(record, consumer);
   }
 
-  private Map<String, Collection<String>> headersToMap(Headers header) {
+  /**
+   * Collects the Okapi headers of a record, they carry the FOLIO context of the update.
+   *
+   * @param header record headers
+   * @return Okapi headers by name
+   */
+  public static Map<String, Collection<String>> toOkapiHeaders(Headers header) {
     Iterator<Header> headerIterator = header.iterator();
     Map<String, Collection<String>> okapiHeaders = new HashMap<>();
     while (headerIterator.hasNext()) {
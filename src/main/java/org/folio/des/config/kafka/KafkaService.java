@@ -1,14 +1,28 @@
 package org.folio.des.config.kafka;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.folio.de.entity.JobCommandOutboxMessage;
+import org.folio.des.repository.JobCommandOutboxRepository;
+import org.folio.des.security.TokenCipher;
+import org.folio.des.service.JobCommandOutboxRelay;
 import org.folio.spring.FolioExecutionContext;
+import org.folio.spring.integration.XOkapiHeaders;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
@@ -17,7 +31,11 @@ import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.KafkaAdmin;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.support.serializer.JsonSerializer;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 
 @Component
@@ -26,6 +44,7 @@ import org.springframework.stereotype.Component;
 public class KafkaService {
 
   public static final String EVENT_LISTENER_ID = "mod-data-export-events-listener";
+  public static final String EVENT_BATCH_LISTENER_ID = "mod-data-export-events-batch-listener";
 
   private final KafkaAdmin kafkaAdmin;
   private final KafkaTemplate<String, Object> kafkaTemplate;
@@ -33,10 +52,18 @@ public class KafkaService {
   private final BeanFactory beanFactory;
   private final FolioExecutionContext folioExecutionContext;
   private final Environment springEnvironment;
+  private final JobCommandOutboxRepository outboxRepository;
+  private final JobCommandOutboxRelay outboxRelay;
+  private final TokenCipher tokenCipher;
+  /** Serializes like the producer of {@link #send}, the type header included. */
+  private final JsonSerializer<Object> outboxSerializer = new JsonSerializer<>();
 
   @Value("${env:folio}")
   private String environment;
 
+  @Value("${application.kafka.batch-listener:true}")
+  private boolean batchListener;
+
   @RequiredArgsConstructor
   @Getter
   public enum Topic {
@@ -63,8 +90,9 @@ public class KafkaService {
    * Restarts kafka event listeners in mod-data-export-spring application.
    */
   public void restartEventListeners() {
-    log.info("Restarting kafka consumer to start listening created topics [id: {}]", EVENT_LISTENER_ID);
-    var listenerContainer = kafkaListenerEndpointRegistry.getListenerContainer(EVENT_LISTENER_ID);
+    var listenerId = batchListener ? EVENT_BATCH_LISTENER_ID : EVENT_LISTENER_ID;
+    log.info("Restarting kafka consumer to start listening created topics [id: {}]", listenerId);
+    var listenerContainer = kafkaListenerEndpointRegistry.getListenerContainer(listenerId);
     listenerContainer.stop();
     listenerContainer.start();
   }
@@ -93,13 +121,108 @@ public class KafkaService {
     return String.format("%s.%s.%s", environment, tenantId, topicName);
   }
 
-  public void send(Topic topic, String key, Object data) {
+  /**
+   * Writes the record to the job command outbox, in the current transaction if there is one.
+   * {@link JobCommandOutboxRelay} sends it once committed, so a rolled back change sends nothing and a committed one
+   * is not lost. The record is serialized and gets the FOLIO headers now, like with {@link #send}, the token is stored
+   * encrypted and added back when sending.
+   */
+  public void sendViaOutbox(Topic topic, String key, Object data) {
+    sendViaOutbox(topic, key, data, null);
+  }
+
+  /**
+   * Writes the record to the job command outbox like {@link #sendViaOutbox(Topic, String, Object)}, its delivery
+   * updates the dispatch status of the job.
+   */
+  public void sendViaOutbox(Topic topic, String key, Object data, UUID jobId) {
+    var tenant = getOutboxTenant();
+    outboxRepository.save(toOutboxMessage(topic, tenant, key, data, jobId));
+    log.info("Queued {} with tenant {}.", data, tenant);
+    wakeUpRelayAfterCommit();
+  }
+
+  /**
+   * Writes the records to the job command outbox together, like {@link #sendViaOutbox(Topic, String, Object, UUID)}.
+   *
+   * @param topic topic of the records
+   * @param records the records
+   * @param keyMapper key of a record
+   * @param jobIdMapper job of a record, whose dispatch status its delivery updates
+   */
+  public <T> void sendAllViaOutbox(Topic topic, List<T> records, Function<T, String> keyMapper,
+      Function<T, UUID> jobIdMapper) {
+    if (records.isEmpty()) {
+      return;
+    }
+    var tenant = getOutboxTenant();
+    outboxRepository.saveAll(records.stream()
+      .map(data -> toOutboxMessage(topic, tenant, keyMapper.apply(data), data, jobIdMapper.apply(data)))
+      .toList());
+    log.info("Queued {} records to {} with tenant {}.", records.size(), topic.getTopicName(), tenant);
+    wakeUpRelayAfterCommit();
+  }
+
+  private String getOutboxTenant() {
+    String tenant = folioExecutionContext.getTenantId();
+    if (StringUtils.isBlank(tenant)) {
+      throw new IllegalStateException("Can't send to Kafka because tenant is blank");
+    }
+    return tenant;
+  }
+
+  private JobCommandOutboxMessage toOutboxMessage(Topic topic, String tenant, String key, Object data, UUID jobId) {
+    var topicName = getTenantTopicName(topic.getTopicName(), tenant);
+    var headers = new RecordHeaders();
+    folioExecutionContext.getOkapiHeaders().forEach((name, values) -> {
+      if (!XOkapiHeaders.TOKEN.equalsIgnoreCase(name)) {
+        headers.add(name, values.stream().findFirst().orElse("").getBytes(StandardCharsets.UTF_8));
+      }
+    });
+    var message = new JobCommandOutboxMessage();
+    message.setTopic(topicName);
+    message.setMessageKey(key);
+    message.setPayload(outboxSerializer.serialize(topicName, headers, data));
+    Map<String, String> headerValues = new LinkedHashMap<>();
+    for (Header header : headers) {
+      headerValues.put(header.key(), new String(header.value(), StandardCharsets.UTF_8));
+    }
+    message.setHeaders(headerValues);
+    var token = folioExecutionContext.getToken();
+    if (StringUtils.isNotBlank(token)) {
+      message.setEncryptedToken(tokenCipher.encrypt(token));
+    }
+    message.setCreatedDate(new Date());
+    message.setJobId(jobId);
+    return message;
+  }
+
+  private void wakeUpRelayAfterCommit() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          outboxRelay.wakeUp();
+        }
+      });
+    } else {
+      outboxRelay.wakeUp();
+    }
+  }
+
+  /**
+   * Sends the record right away, outside of any transaction.
+   *
+   * @return the delivery of the record, completed on the producer I/O thread
+   */
+  public CompletableFuture<SendResult<String, Object>> send(Topic topic, String key, Object data) {
     log.info("Sending {}.", data);
     String tenant = folioExecutionContext.getTenantId();
     if (StringUtils.isBlank(tenant)) {
       throw new IllegalStateException("Can't send to Kafka because tenant is blank");
     }
-    kafkaTemplate.send(getTenantTopicName(topic.getTopicName(), tenant), key, data);
+    var result = kafkaTemplate.send(getTenantTopicName(topic.getTopicName(), tenant), key, data);
     log.info("Sent {} with tenant {}.", data, tenant);
+    return result;
   }
 }
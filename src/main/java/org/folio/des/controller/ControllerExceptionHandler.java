@@ -6,6 +6,7 @@ import java.util.List;
 import org.folio.des.domain.dto.Error;
 import org.folio.des.domain.dto.Errors;
 import org.folio.des.domain.exception.RequestValidationException;
+import org.folio.des.exceptions.IdempotencyKeyReuseException;
 import org.folio.spring.exception.NotFoundException;
 import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -72,6 +73,12 @@ public class ControllerExceptionHandler {
     return buildError(exception, HttpStatus.NOT_FOUND);
   }
 
+  @ExceptionHandler(IdempotencyKeyReuseException.class)
+  @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+  public Errors handleIdempotencyKeyReuseException(IdempotencyKeyReuseException exception) {
+    return buildError(exception, HttpStatus.UNPROCESSABLE_ENTITY);
+  }
+
   @ExceptionHandler(Exception.class)
   @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
   public Errors handleException(Exception exception) {
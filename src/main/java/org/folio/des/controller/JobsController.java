@@ -6,27 +6,65 @@ import static org.folio.des.domain.dto.ExportType.BULK_EDIT_IDENTIFIERS;
 import static org.folio.des.domain.dto.ExportType.BULK_EDIT_QUERY;
 import static org.hibernate.internal.util.StringHelper.isBlank;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
+import org.folio.des.domain.TotalRecordsMode;
 import org.folio.des.domain.dto.ExportTypeSpecificParameters;
 import org.folio.des.domain.dto.Job;
+import org.folio.des.domain.dto.JobBatchResult;
+import org.folio.des.domain.dto.JobChanges;
 import org.folio.des.domain.dto.JobCollection;
+import org.folio.des.domain.dto.JobIdCollection;
+import org.folio.des.domain.dto.JobStatus;
+import org.folio.des.domain.dto.JobStatusSummary;
+import org.folio.des.domain.dto.JobStatusSummaryCollection;
 import org.folio.des.rest.resource.JobsApi;
+import org.folio.des.service.JobEventsService;
 import org.folio.des.service.JobService;
+import org.folio.spring.exception.NotFoundException;
+import org.folio.spring.integration.XOkapiHeaders;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/data-export-spring")
 @RequiredArgsConstructor
 public class JobsController implements JobsApi {
 
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  public static final String HAS_MORE_HEADER = "X-Has-More";
+  public static final String REUSABLE_JOB_ID_HEADER = "X-Reusable-Job-Id";
+  public static final String REUSED_JOB_ID_HEADER = "X-Reused-Job-Id";
+  public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+  private static final Set<JobStatus> FINAL_STATUSES = EnumSet.of(JobStatus.SUCCESSFUL, JobStatus.FAILED);
+  private static final Duration DEFAULT_WAIT_TIMEOUT = Duration.ofSeconds(30);
+
   private final JobService service;
+  private final ObjectMapper objectMapper;
+  private final JobEventsService jobEventsService;
 
   @Override
   public ResponseEntity<Job> getJobById(UUID id) {
@@ -34,17 +72,134 @@ public class JobsController implements JobsApi {
   }
 
   @Override
-  public ResponseEntity<JobCollection> getJobs(Integer offset, Integer limit, String query) {
-    return ResponseEntity.ok(service.get(offset, limit, query));
+  public ResponseEntity<JobCollection> getJobs(Integer offset, Integer limit, String query, String cursor,
+      List<String> fields, String totalRecords) {
+    var totalRecordsMode = TotalRecordsMode.fromValue(totalRecords);
+    var response = ResponseEntity.ok();
+    if (cursor == null) {
+      var page = service.get(offset, limit, query, fields, totalRecordsMode);
+      if (page.getHasMore() != null) {
+        response.header(HAS_MORE_HEADER, page.getHasMore().toString());
+      }
+      return response.body(page.getContent());
+    }
+    var page = service.getAfter(cursor, limit, query, fields, totalRecordsMode);
+    if (page.getNextCursor() != null) {
+      response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+    }
+    return response.body(page.getContent());
+  }
+
+  @Override
+  public ResponseEntity<JobChanges> getJobChanges(String since, String cursor, Integer limit) {
+    var page = service.getChanges(since, cursor, limit);
+    var response = ResponseEntity.ok();
+    if (page.getNextCursor() != null) {
+      response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+    }
+    return response.body(page.getContent());
   }
 
   @Override
-  public ResponseEntity<Job> upsertJob(@RequestHeader("X-Okapi-Tenant") String tenantId, Job job) {
+  public ResponseEntity<JobStatusSummaryCollection> getJobStatuses(JobIdCollection jobIdCollection) {
+    return ResponseEntity.ok(service.getStatuses(jobIdCollection.getIds()));
+  }
+
+  /**
+   * Writes all jobs matching the query as newline delimited JSON while they are read from the database.
+   */
+  @GetMapping(value = "/jobs/stream", produces = APPLICATION_NDJSON_VALUE)
+  public void streamJobs(@RequestParam(value = "query", required = false) String query, HttpServletResponse response)
+      throws IOException {
+    response.setContentType(APPLICATION_NDJSON_VALUE);
+    OutputStream out = response.getOutputStream();
+    try {
+      service.streamJobs(query, job -> {
+        try {
+          out.write(objectMapper.writeValueAsBytes(job));
+          out.write('\n');
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    out.flush();
+  }
+
+  /**
+   * Pushes the status and progress changes of all jobs of the tenant as Server-Sent Events.
+   */
+  @GetMapping(value = "/jobs/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamJobEvents(@RequestHeader(XOkapiHeaders.TENANT) String tenantId) {
+    return jobEventsService.subscribe(tenantId, null);
+  }
+
+  /**
+   * Pushes the current state and the status and progress changes of the job as Server-Sent Events.
+   */
+  @GetMapping(value = "/jobs/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamJobEventsById(@RequestHeader(XOkapiHeaders.TENANT) String tenantId,
+      @PathVariable("id") UUID id) {
+    var statuses = service.getStatuses(List.of(id)).getJobStatuses();
+    if (statuses.isEmpty()) {
+      throw new NotFoundException(String.format("Job %s not found", id));
+    }
+    var emitter = jobEventsService.subscribe(tenantId, id);
+    jobEventsService.sendSnapshot(emitter, statuses.get(0));
+    return emitter;
+  }
+
+  /**
+   * Waits until the job reaches one of the statuses, SUCCESSFUL or FAILED by default, and returns its state. On timeout
+   * the latest state is returned, whatever its status. The wait is processed asynchronously, the response is written
+   * from the deferred result, so the request thread is released meanwhile.
+   */
+  @Override
+  public ResponseEntity<JobStatusSummary> waitForJobStatus(@RequestHeader(XOkapiHeaders.TENANT) String tenantId,
+      UUID id, List<JobStatus> statuses, String timeout) {
+    var awaitedStatuses = statuses == null || statuses.isEmpty() ? FINAL_STATUSES : EnumSet.copyOf(statuses);
+    var waitTimeout = timeout == null ? DEFAULT_WAIT_TIMEOUT : DurationStyle.detectAndParse(timeout);
+    if (waitTimeout.isNegative()) {
+      throw new IllegalArgumentException("Invalid timeout " + timeout);
+    }
+    var result = jobEventsService.await(tenantId, id, awaitedStatuses, waitTimeout,
+      () -> service.getStatuses(List.of(id)).getJobStatuses().stream()
+        .findFirst()
+        .orElseThrow(() -> new NotFoundException(String.format("Job %s not found", id))));
+    var request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+    try {
+      WebAsyncUtils.getAsyncManager(request).startDeferredResultProcessing(result);
+    } catch (Exception e) {
+      throw new IllegalStateException("Can't wait for job " + id, e);
+    }
+    // the response is written once the deferred result is set
+    return null;
+  }
+
+  @Override
+  public ResponseEntity<Job> upsertJob(@RequestHeader("X-Okapi-Tenant") String tenantId, Job job, String idempotencyKey,
+      Boolean reuseResult) {
     job.setTenant(tenantId);
     if (isMissingRequiredParameters(job)) {
       return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
     }
-    return new ResponseEntity<>(service.upsertAndSendToKafka(job, true), job.getId() == null ? HttpStatus.CREATED : HttpStatus.OK);
+    var response = ResponseEntity.status(job.getId() == null ? HttpStatus.CREATED : HttpStatus.OK);
+    var submission = service.submitJob(job, idempotencyKey, Boolean.TRUE.equals(reuseResult));
+    if (submission.getReusableJobId() != null) {
+      response.header(submission.isResultReused() ? REUSED_JOB_ID_HEADER : REUSABLE_JOB_ID_HEADER,
+        submission.getReusableJobId().toString());
+    }
+    return response.body(submission.getJob());
+  }
+
+  @Override
+  public ResponseEntity<JobBatchResult> submitJobs(@RequestHeader("X-Okapi-Tenant") String tenantId,
+      JobCollection jobCollection) {
+    var jobs = jobCollection.getJobRecords() == null ? List.<Job>of() : jobCollection.getJobRecords();
+    jobs.forEach(job -> job.setTenant(tenantId));
+    return ResponseEntity.ok(service.submitJobs(jobs, this::isMissingRequiredParameters));
   }
 
   @Override
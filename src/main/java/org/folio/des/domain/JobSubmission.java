@@ -0,0 +1,19 @@
+package org.folio.des.domain;
+
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.folio.des.domain.dto.Job;
+
+/**
+ * Job submitted by a client, with the reuse of a previous result that does not fit into the job itself.
+ */
+@Getter
+@AllArgsConstructor
+public class JobSubmission {
+  private final Job job;
+  /** Successful job with the same parameters whose files can be reused, {@code null} if there is none. */
+  private final UUID reusableJobId;
+  /** Whether the files of the reusable job were taken instead of exporting again. */
+  private final boolean resultReused;
+}
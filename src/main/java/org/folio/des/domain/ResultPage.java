@@ -0,0 +1,21 @@
+package org.folio.des.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Page of a listing with the paging state that does not fit into the collection itself.
+ */
+@Getter
+@AllArgsConstructor
+public class ResultPage<T> {
+  private final T content;
+  /** Cursor of the next page, {@code null} when this is the last page or the listing is not keyset paginated. */
+  private final String nextCursor;
+  /** Whether more records follow this page, {@code null} when it was not computed. */
+  private final Boolean hasMore;
+
+  public ResultPage(T content, String nextCursor) {
+    this(content, nextCursor, nextCursor != null);
+  }
+}
@@ -0,0 +1,41 @@
+package org.folio.des.domain;
+
+import java.util.Arrays;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * How {@code totalRecords} of a listing is computed.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum TotalRecordsMode {
+  /** SQL COUNT of the matching rows. */
+  EXACT("exact"),
+  /**
+   * Planner row estimate, of the table for unfiltered listings and of the query for filtered ones. Small estimates are
+   * counted exactly.
+   */
+  ESTIMATED("estimated"),
+  /** Not counted, the listing reports whether more records follow instead. */
+  NONE("none");
+
+  private final String value;
+
+  /**
+   * Get the mode by its request parameter value.
+   *
+   * @param value the parameter value, {@code exact} if blank
+   * @return mode
+   */
+  public static TotalRecordsMode fromValue(String value) {
+    if (value == null || value.isBlank()) {
+      return EXACT;
+    }
+    return Arrays.stream(values())
+      .filter(mode -> mode.value.equalsIgnoreCase(value))
+      .findFirst()
+      .orElseThrow(() -> new IllegalArgumentException(String.format("Unknown totalRecords value: %s", value)));
+  }
+}
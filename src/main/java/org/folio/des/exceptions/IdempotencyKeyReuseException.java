@@ -0,0 +1,8 @@
+package org.folio.des.exceptions;
+
+public class IdempotencyKeyReuseException extends RuntimeException {
+
+  public IdempotencyKeyReuseException(String message) {
+    super(message);
+  }
+}
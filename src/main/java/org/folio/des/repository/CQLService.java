@@ -1,30 +1,174 @@
 package org.folio.des.repository;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
-import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.Table;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import lombok.extern.log4j.Log4j2;
+import org.apache.commons.lang3.StringUtils;
 import org.folio.cql2pgjson.exception.QueryValidationException;
+import org.folio.des.domain.ResultPage;
+import org.folio.des.domain.TotalRecordsMode;
 import org.folio.des.repository.criteria.CQL2JPACriteria;
+import org.folio.des.repository.criteria.CqlCriteria;
+import org.folio.des.repository.criteria.CqlCursor;
+import org.folio.des.repository.criteria.CqlQueryTemplate;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.z3950.zing.cql.CQLNode;
 
 @Service
 @Log4j2
 public class CQLService {
 
+  private static final String ALL_RECORDS_INDEX = "cql.allRecords";
+  private static final String ALL_RECORDS_QUERY = ALL_RECORDS_INDEX + "=1";
+  private static final String EXPLAIN = "EXPLAIN (FORMAT JSON) ";
+  private static final long EXACT_COUNT_THRESHOLD = 1000;
+
   @PersistenceContext
   private EntityManager entityManager;
 
+  /** Immutable templates by query shape, a missing shape is compiled once while concurrent callers wait. */
+  private final Cache<String, CqlQueryTemplate<?>> templates;
+  /** Parsed CQL trees by query, e.g. of polling clients repeating a query. The trees are only read once parsed. */
+  private final Cache<String, CQLNode> parsedQueries;
+  private final ObjectMapper objectMapper;
+
+  public CQLService(@Value("${application.cql.query-cache-size:256}") int queryCacheSize, MeterRegistry meterRegistry,
+      ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+    this.templates = Caffeine.newBuilder().maximumSize(queryCacheSize).recordStats().build();
+    this.parsedQueries = Caffeine.newBuilder().maximumSize(queryCacheSize).build();
+    FunctionCounter.builder("cql.query.cache.hits", this, CQLService::getCacheHits)
+      .description("CQL queries served from the compiled query cache")
+      .register(meterRegistry);
+    FunctionCounter.builder("cql.query.cache.misses", this, CQLService::getCacheMisses)
+      .description("CQL queries compiled because their shape was not cached")
+      .register(meterRegistry);
+    Gauge.builder("cql.query.cache.size", templates, Cache::estimatedSize)
+      .description("Number of compiled CQL query templates")
+      .register(meterRegistry);
+  }
+
   public <E> List<E> getByCQL(Class<E> entityCls, String cql, int offset, int limit) {
+    return getByCQL(entityCls, cql, offset, limit, List.of());
+  }
+
+  /**
+   * Gets entities by the query, only the given attributes are read from the database when not empty.
+   *
+   * @param entityCls  the entity class
+   * @param cql        the query, all records if blank
+   * @param offset     the offset
+   * @param limit      the limit
+   * @param attributes the entity attributes to populate, all if empty
+   * @return entities, partially populated if attributes are given
+   */
+  public <E> List<E> getByCQL(Class<E> entityCls, String cql, int offset, int limit, List<String> attributes) {
     try {
-      final CQL2JPACriteria<E> cql2JPACriteria = new CQL2JPACriteria<>(entityCls, entityManager);
-      final CriteriaQuery<E> criteria = cql2JPACriteria.toCriteria(cql);
-      return entityManager
-          .createQuery(criteria)
+      final CQLNode node = parse(StringUtils.isBlank(cql) ? ALL_RECORDS_QUERY : cql);
+      if (attributes.isEmpty()) {
+        final CqlQueryTemplate<E> template = getTemplate(entityCls, node, false);
+        return template.createQuery(entityManager, node)
+            .setFirstResult(offset)
+            .setMaxResults(limit)
+            .getResultList();
+      }
+      final CqlQueryTemplate<Tuple> template = getProjectionTemplate(entityCls, node, attributes);
+      return template.createQuery(entityManager, node)
           .setFirstResult(offset)
           .setMaxResults(limit)
-          .getResultList();
+          .getResultList()
+          .stream()
+          .map(tuple -> toEntity(entityCls, tuple))
+          .toList();
+    } catch (QueryValidationException e) {
+      log.error("Can not invoke CQL query {} ", cql);
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  public <E> ResultPage<List<E>> getByCQLAfter(Class<E> entityCls, String cql, String cursor, int limit) {
+    return getByCQLAfter(entityCls, cql, cursor, limit, List.of());
+  }
+
+  /**
+   * Gets the page of entities after the cursor using keyset pagination.
+   *
+   * @param entityCls  the entity class
+   * @param cql        the query, all records if blank
+   * @param cursor     the cursor returned with the previous page, blank for the first page
+   * @param limit      the page size
+   * @param attributes the entity attributes to populate, all if empty
+   * @return entities and the cursor of the next page
+   */
+  public <E> ResultPage<List<E>> getByCQLAfter(Class<E> entityCls, String cql, String cursor, int limit,
+      List<String> attributes) {
+    try {
+      final CQLNode node = parse(StringUtils.isBlank(cql) ? ALL_RECORDS_QUERY : cql);
+      final List<String> cursorValues = CqlCursor.decode(cursor);
+      final CqlQueryTemplate<?> template = getKeysetTemplate(entityCls, node, cursorValues, attributes);
+      final List<E> records = template.createQuery(entityManager, node, cursorValues)
+          .setMaxResults(limit)
+          .getResultList()
+          .stream()
+          .map(row -> row instanceof Tuple tuple ? toEntity(entityCls, tuple) : entityCls.cast(row))
+          .toList();
+      String nextCursor = null;
+      if (limit > 0 && records.size() == limit) {
+        nextCursor = CqlCursor.encode(template.getSortKeys(), records.get(records.size() - 1));
+      }
+      return new ResultPage<>(records, nextCursor);
+    } catch (QueryValidationException e) {
+      log.error("Can not invoke CQL query {} with cursor {}", cql, cursor);
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  /**
+   * Streams entities matching the query through a forward-only cursor. Each entity is detached after it was consumed,
+   * so the persistence context does not grow. Must be called within a transaction, the PostgreSQL driver only fetches
+   * in batches when auto-commit is off.
+   *
+   * @param entityCls the entity class
+   * @param cql       the query, all records if blank
+   * @param fetchSize the number of rows fetched per round trip
+   * @param consumer  the consumer of the entities
+   * @return the number of streamed entities
+   */
+  public <E> long streamByCQL(Class<E> entityCls, String cql, int fetchSize, Consumer<E> consumer) {
+    try {
+      final CQLNode node = parse(StringUtils.isBlank(cql) ? ALL_RECORDS_QUERY : cql);
+      final CqlQueryTemplate<E> template = getTemplate(entityCls, node, false);
+      long count = 0;
+      try (Stream<E> entities = template.createQuery(entityManager, node)
+          .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+          .setHint(HibernateHints.HINT_READ_ONLY, true)
+          .getResultStream()) {
+        for (Iterator<E> iterator = entities.iterator(); iterator.hasNext(); count++) {
+          E entity = iterator.next();
+          consumer.accept(entity);
+          entityManager.detach(entity);
+        }
+      }
+      return count;
     } catch (QueryValidationException e) {
       log.error("Can not invoke CQL query {} ", cql);
       throw new IllegalArgumentException(e);
@@ -33,12 +177,190 @@ public class CQLService {
 
   public <E> Integer countByCQL(Class<E> entityCls, String cql) {
     try {
-      final CQL2JPACriteria<E> cql2JPACriteria = new CQL2JPACriteria<>(entityCls, entityManager);
-      final CriteriaQuery<E> criteria = cql2JPACriteria.toCriteria(cql);
-      return entityManager.createQuery(criteria).getResultList().size();
+      final CQLNode node = parse(cql);
+      final CqlQueryTemplate<Long> template = getTemplate(entityCls, node, true);
+      return Math.toIntExact(template.createQuery(entityManager, node).getSingleResult());
+    } catch (QueryValidationException e) {
+      log.error("Can not invoke CQL query {} ", cql);
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  /**
+   * Counts entities matching the query as requested by the mode.
+   *
+   * @param entityCls the entity class
+   * @param cql       the query, all records if blank
+   * @param mode      how to count
+   * @return number of entities, {@code null} for {@link TotalRecordsMode#NONE}
+   */
+  public <E> Integer countByCQL(Class<E> entityCls, String cql, TotalRecordsMode mode) {
+    return switch (mode) {
+      case NONE -> null;
+      case ESTIMATED -> isUnfiltered(cql) ? estimateCount(entityCls) : estimateCountByCQL(entityCls, cql);
+      case EXACT -> countByCQL(entityCls, StringUtils.isBlank(cql) ? ALL_RECORDS_QUERY : cql);
+    };
+  }
+
+  private boolean isUnfiltered(String cql) {
+    if (StringUtils.isBlank(cql)) {
+      return true;
+    }
+    try {
+      return CQL2JPACriteria.collectTerms(parse(cql)).stream()
+          .allMatch(term -> ALL_RECORDS_INDEX.equalsIgnoreCase(term.getIndex()));
+    } catch (QueryValidationException e) {
+      log.error("Can not invoke CQL query {} ", cql);
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  private <E> int estimateCount(Class<E> entityCls) {
+    var estimate = ((Number) entityManager
+        .createNativeQuery("SELECT reltuples FROM pg_class WHERE oid = to_regclass(?1)")
+        .setParameter(1, getTableName(entityCls))
+        .getSingleResult()).longValue();
+    // a table that was never analyzed has no estimate, it is small enough to be counted
+    return estimate > 0 ? (int) Math.min(estimate, Integer.MAX_VALUE) : countByCQL(entityCls, ALL_RECORDS_QUERY);
+  }
+
+  /**
+   * Estimates the number of entities matching the query from the row estimate of the planner, which PostgreSQL
+   * computes from the column statistics without reading the rows. The SQL of the cached count template is explained
+   * on the connection of the current session.
+   */
+  private <E> int estimateCountByCQL(Class<E> entityCls, String cql) {
+    try {
+      final CQLNode node = parse(cql);
+      final CqlQueryTemplate<Long> template = getCountTemplateWithSql(entityCls, node);
+      if (template.getSql() == null) {
+        // the SQL of the shape depends on the size of its IN list
+        return countByCQL(entityCls, cql);
+      }
+      var plan = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+        try (var statement = template.prepareStatement(connection, EXPLAIN, node);
+             var resultSet = statement.executeQuery()) {
+          resultSet.next();
+          return resultSet.getString(1);
+        }
+      });
+      var estimate = objectMapper.readTree(plan).get(0).get("Plan").get("Plan Rows").asLong();
+      // a small estimate may be far off in relative terms, such results are cheap to count
+      return estimate < EXACT_COUNT_THRESHOLD ? countByCQL(entityCls, cql) : (int) Math.min(estimate, Integer.MAX_VALUE);
     } catch (QueryValidationException e) {
       log.error("Can not invoke CQL query {} ", cql);
       throw new IllegalArgumentException(e);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Can not read the plan of CQL query " + cql, e);
+    }
+  }
+
+  private static String getTableName(Class<?> entityCls) {
+    var table = entityCls.getAnnotation(Table.class);
+    if (table != null && StringUtils.isNotBlank(table.name())) {
+      return table.name();
+    }
+    return entityCls.getSimpleName().replaceAll("([a-z])([A-Z])", "$1_$2").toLowerCase();
+  }
+
+  public long getCacheHits() {
+    return templates.stats().hitCount();
+  }
+
+  public long getCacheMisses() {
+    return templates.stats().missCount();
+  }
+
+  private <E> CqlQueryTemplate<?> getKeysetTemplate(Class<E> entityCls, CQLNode node, List<String> cursorValues,
+      List<String> attributes) throws QueryValidationException {
+    var seekShape = cursorValues.stream().map(value -> value == null ? "n" : "v").toList();
+    var key = entityCls.getName() + ":keyset" + seekShape + attributes + ":" + CQL2JPACriteria.toShape(node);
+    return getTemplate(key, node, cursorValues, (em, n, values) -> {
+      var cql2JPACriteria = new CQL2JPACriteria<>(entityCls, em);
+      return attributes.isEmpty()
+          ? cql2JPACriteria.toKeysetCriteria(n, values)
+          : cql2JPACriteria.toKeysetCriteria(n, values, attributes);
+    });
+  }
+
+  private <E> CqlQueryTemplate<Tuple> getProjectionTemplate(Class<E> entityCls, CQLNode node, List<String> attributes)
+      throws QueryValidationException {
+    var key = entityCls.getName() + ":select" + attributes + ":" + CQL2JPACriteria.toShape(node);
+    return getTemplate(key, node, List.of(),
+        (em, n, values) -> new CQL2JPACriteria<>(entityCls, em).toCriteria(n, attributes));
+  }
+
+  @SuppressWarnings("unchecked")
+  private <E, T> CqlQueryTemplate<T> getTemplate(Class<E> entityCls, CQLNode node, boolean count)
+      throws QueryValidationException {
+    var key = entityCls.getName() + (count ? ":count:" : ":select:") + CQL2JPACriteria.toShape(node);
+    return getTemplate(key, node, List.of(), (em, n, values) -> {
+      var cql2JPACriteria = new CQL2JPACriteria<>(entityCls, em);
+      return (CqlCriteria<T>) (count ? cql2JPACriteria.toCountCriteria(n) : cql2JPACriteria.toCriteria(n));
+    });
+  }
+
+  private <E> CqlQueryTemplate<Long> getCountTemplateWithSql(Class<E> entityCls, CQLNode node)
+      throws QueryValidationException {
+    var key = entityCls.getName() + ":count-sql:" + CQL2JPACriteria.toShape(node);
+    return getTemplate(key, () -> CqlQueryTemplate.compileWithSql(entityManager, node,
+        (em, n, values) -> new CQL2JPACriteria<>(entityCls, em).toCountCriteria(n)));
+  }
+
+  private <T> CqlQueryTemplate<T> getTemplate(String key, CQLNode node, List<String> cursorValues,
+      CqlQueryTemplate.CriteriaFactory<T> factory) throws QueryValidationException {
+    return getTemplate(key, () -> CqlQueryTemplate.compile(entityManager, node, cursorValues, factory));
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> CqlQueryTemplate<T> getTemplate(String key, TemplateCompiler<T> compiler)
+      throws QueryValidationException {
+    try {
+      return (CqlQueryTemplate<T>) templates.get(key, k -> {
+        try {
+          log.debug("Compiling CQL query template {}", k);
+          return compiler.compile();
+        } catch (QueryValidationException e) {
+          // not cached, the next query of the shape fails the same way
+          throw new UncheckedValidationException(e);
+        }
+      });
+    } catch (UncheckedValidationException e) {
+      throw (QueryValidationException) e.getCause();
+    }
+  }
+
+  private CQLNode parse(String cql) throws QueryValidationException {
+    try {
+      return parsedQueries.get(cql, k -> {
+        try {
+          return CQL2JPACriteria.parse(k);
+        } catch (QueryValidationException e) {
+          throw new UncheckedValidationException(e);
+        }
+      });
+    } catch (UncheckedValidationException e) {
+      throw (QueryValidationException) e.getCause();
+    }
+  }
+
+  private static <E> E toEntity(Class<E> entityCls, Tuple tuple) {
+    var entity = BeanUtils.instantiateClass(entityCls);
+    var accessor = PropertyAccessorFactory.forBeanPropertyAccess(entity);
+    for (TupleElement<?> element : tuple.getElements()) {
+      accessor.setPropertyValue(element.getAlias(), tuple.get(element));
+    }
+    return entity;
+  }
+
+  @FunctionalInterface
+  private interface TemplateCompiler<T> {
+    CqlQueryTemplate<T> compile() throws QueryValidationException;
+  }
+
+  private static class UncheckedValidationException extends RuntimeException {
+    UncheckedValidationException(QueryValidationException cause) {
+      super(cause);
     }
   }
 }
@@ -0,0 +1,40 @@
+package org.folio.des.repository;
+
+import org.folio.de.entity.JobCommandOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface JobCommandOutboxRepository extends JpaRepository<JobCommandOutboxMessage, Long> {
+
+  /**
+   * Locks the next records to send, skipping the ones locked by other module instances. Only the oldest record of a
+   * key is taken, a later one waits until it is sent, so the records of a key keep their order.
+   */
+  @Query(value = "SELECT * FROM job_command_outbox m "
+    + "WHERE NOT EXISTS (SELECT 1 FROM job_command_outbox e WHERE e.message_key = m.message_key AND e.id < m.id) "
+    + "ORDER BY m.id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+  List<JobCommandOutboxMessage> lockNext(@Param("limit") int limit);
+
+  @Modifying
+  @Query("DELETE FROM JobCommandOutboxMessage m WHERE m.id IN :ids")
+  int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+  @Modifying
+  @Query("UPDATE JobCommandOutboxMessage m SET m.attempts = m.attempts + 1, m.lastError = :error WHERE m.id = :id")
+  int recordFailure(@Param("id") Long id, @Param("error") String error);
+
+  @Query("SELECT min(m.createdDate) FROM JobCommandOutboxMessage m")
+  Date findOldestCreatedDate();
+
+  /** Schemas having an outbox, one per tenant. */
+  @Query(value = "SELECT table_schema FROM information_schema.tables WHERE table_name = 'job_command_outbox'",
+    nativeQuery = true)
+  List<String> findSchemas();
+
+}
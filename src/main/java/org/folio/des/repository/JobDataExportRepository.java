@@ -1,9 +1,19 @@
 package org.folio.des.repository;
 
 import org.folio.de.entity.Job;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.folio.des.domain.dto.JobDispatchStatus;
+import org.hibernate.LockOptions;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
@@ -13,6 +23,69 @@ public interface JobDataExportRepository extends JpaRepository<Job, UUID> {
   @Query(value = "SELECT nextval('job-number')", nativeQuery = true)
   Integer getNextJobNumber();
 
+  /** Reserves a block of job numbers in one round trip. */
+  @Query(value = "SELECT cast(nextval('job-number') as integer) FROM generate_series(1, :count)", nativeQuery = true)
+  List<Integer> getNextJobNumbers(@Param("count") int count);
+
   List<Job> findByUpdatedDateBefore(Date updatedDate);
 
+  /**
+   * Finds the latest successful jobs with the parameters hash, the status is a literal to match the partial index.
+   */
+  @Query("SELECT j FROM Job j WHERE j.parametersHash = :parametersHash "
+    + "AND j.status = org.folio.des.domain.dto.JobStatus.SUCCESSFUL AND j.endTime > :endTime ORDER BY j.endTime DESC")
+  List<Job> findSuccessfulByParametersHash(@Param("parametersHash") String parametersHash, @Param("endTime") Date endTime,
+      Pageable pageable);
+
+  /**
+   * Finds the latest scheduled or running leader jobs with the parameters hash. The rows are locked in share mode, so a
+   * leader can't complete before the follower attached to it is committed.
+   */
+  @Lock(LockModeType.PESSIMISTIC_READ)
+  @Query("SELECT j FROM Job j WHERE j.parametersHash = :parametersHash AND j.leaderJobId IS NULL "
+    + "AND j.status IN (org.folio.des.domain.dto.JobStatus.SCHEDULED, org.folio.des.domain.dto.JobStatus.IN_PROGRESS) "
+    + "AND j.createdDate > :createdDate ORDER BY j.createdDate DESC")
+  List<Job> findInFlightByParametersHash(@Param("parametersHash") String parametersHash,
+      @Param("createdDate") Date createdDate, Pageable pageable);
+
+  /**
+   * Finds the oldest jobs that wait for a leader since before the date, skipping the ones locked by other module
+   * instances or by the completion of their leader.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "" + LockOptions.SKIP_LOCKED))
+  @Query("SELECT j FROM Job j WHERE j.leaderJobId IS NOT NULL "
+    + "AND j.status IN (org.folio.des.domain.dto.JobStatus.SCHEDULED, org.folio.des.domain.dto.JobStatus.IN_PROGRESS) "
+    + "AND j.createdDate < :createdDate ORDER BY j.createdDate")
+  List<Job> findFollowersCreatedBefore(@Param("createdDate") Date createdDate, Pageable pageable);
+
+  /**
+   * Detaches the jobs from their leader and schedules them to be exported on their own.
+   */
+  @Modifying(clearAutomatically = true)
+  @Query(value = "UPDATE job SET leader_job_id = NULL, status = 'SCHEDULED', batch_status = 'UNKNOWN', "
+    + "start_time = NULL, dispatch_status = 'PENDING', updated_date = :updatedDate WHERE id IN (:ids)",
+    nativeQuery = true)
+  int releaseFollowers(@Param("ids") Collection<UUID> ids, @Param("updatedDate") Date updatedDate);
+
+  /**
+   * Serializes the submissions of jobs with the parameters hash until the end of the transaction.
+   */
+  @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtext(:parametersHash))", nativeQuery = true)
+  Integer lockParametersHash(@Param("parametersHash") String parametersHash);
+
+  /**
+   * Returns those of the files that jobs still reference, a job reusing the result of another shares its files. Only
+   * jobs with a parameters hash or a leader can share files, the files of the other jobs are not read.
+   */
+  @Query(value = "SELECT DISTINCT f.file FROM job j "
+    + "CROSS JOIN jsonb_array_elements_text(CASE jsonb_typeof(j.files) WHEN 'array' THEN j.files END) f(file) "
+    + "WHERE (j.parameters_hash IS NOT NULL OR j.leader_job_id IS NOT NULL) AND f.file IN (:files)", nativeQuery = true)
+  List<String> findReferencedFiles(@Param("files") Collection<String> files);
+
+  @Modifying
+  @Query("UPDATE Job j SET j.dispatchStatus = :dispatchStatus WHERE j.id IN :ids "
+    + "AND (j.dispatchStatus IS NULL OR j.dispatchStatus <> :dispatchStatus)")
+  int updateDispatchStatus(@Param("ids") Collection<UUID> ids, @Param("dispatchStatus") JobDispatchStatus dispatchStatus);
+
 }
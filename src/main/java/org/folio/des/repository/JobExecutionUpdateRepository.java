@@ -0,0 +1,265 @@
+package org.folio.des.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.hypersistence.utils.hibernate.type.util.ObjectMapperWrapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.Data;
+import org.folio.de.entity.Job;
+import org.folio.des.domain.dto.JobStatus;
+import org.folio.des.domain.dto.Progress;
+import org.folio.des.domain.dto.VendorEdiOrdersExportConfig;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Applies job execution updates with one conditional statement per job instead of a read and a write of the whole
+ * row. Only the columns carried by an update are written, and only when one of them changes. An update older than the
+ * last one applied to the job is discarded by the database. Progress lives in the narrow job_progress table, so
+ * progress ticks do not rewrite the wide job row.
+ */
+@Repository
+public class JobExecutionUpdateRepository {
+
+  private static final TypeReference<List<String>> STRING_LIST = new TypeReference<>() {};
+  /**
+   * The job has seen a later update. Updates with the same timestamp cannot be ordered, such an update is applied
+   * unless the job already has a final status, which it would undo.
+   */
+  private static final String JOB_IS_NEWER = "coalesce(old.update_sequence > :sequence "
+    + "OR old.update_sequence = :sequence AND old.status IN ('SUCCESSFUL', 'FAILED'), false)";
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  /**
+   * Applies the update to its job.
+   *
+   * @param update the update
+   * @return outcome of the update, empty if the job does not exist
+   */
+  public Optional<JobExecutionUpdateResult> apply(JobExecutionUpdate update) {
+    var statement = new UpdateStatement();
+    statement.set("description", update.getDescription(), null);
+    statement.setUnordered("files", toJson(update.getFiles()));
+    statement.setUnordered("file_names", toJson(update.getFileNames()));
+    statement.set("start_time", toTimestamp(update.getStartTime()), null);
+    statement.set("end_time", toTimestamp(update.getEndTime()), null);
+    if (update.isClearErrorDetails()) {
+      statement.setNull("error_details");
+    } else {
+      statement.set("error_details", update.getErrorDetails(), null);
+    }
+    if (update.getVendorEdiOrdersExportConfig() != null) {
+      statement.parameters.put("vendorEdiOrdersExportConfig", toJson(update.getVendorEdiOrdersExportConfig()));
+      statement.setExpression("export_type_specific_parameters", "jsonb_set(old.export_type_specific_parameters, "
+        + "'{vendorEdiOrdersExportConfig}', cast(:vendorEdiOrdersExportConfig as jsonb))");
+    }
+    statement.set("batch_status", update.getBatchStatus() == null ? null : update.getBatchStatus().name(), "BatchStatus");
+    statement.set("status", update.getStatus() == null ? null : update.getStatus().name(), "JobStatus");
+    statement.set("exit_status", toJson(update.getExitStatus()), "jsonb");
+
+    var jobUpdated = !statement.assignments.isEmpty();
+    var progressUpdated = update.getProgress() != null;
+
+    // the job row is only locked and written when a job column changes, progress ticks only write job_progress
+    List<String> ctes = new ArrayList<>();
+    ctes.add("old AS (SELECT * FROM job WHERE id = :id" + (jobUpdated ? " FOR UPDATE" : "") + ")");
+    if (jobUpdated) {
+      ctes.add("updated AS (UPDATE job SET " + String.join(", ", statement.assignments)
+        + ", update_sequence = :sequence, updated_date = :updatedDate FROM old "
+        + "WHERE job.id = old.id AND NOT (" + JOB_IS_NEWER + ") "
+        + "AND (" + String.join(" OR ", statement.changes) + ") "
+        + "RETURNING job.id, cast(job.status as text) AS status, cast(job.batch_status as text) AS batch_status, "
+        + "cast(job.file_names as text) AS file_names)");
+    }
+    if (progressUpdated) {
+      // one upsert, two first writes of the same job racing each other are ordered by their sequence
+      statement.parameters.put("progress", toJson(update.getProgress()));
+      ctes.add("upserted_progress AS (INSERT INTO job_progress (job_id, progress, update_sequence) "
+        + "SELECT id, cast(:progress as jsonb), :sequence FROM old "
+        + "ON CONFLICT (job_id) DO UPDATE SET progress = excluded.progress, update_sequence = excluded.update_sequence "
+        + "WHERE (job_progress.update_sequence IS NULL OR job_progress.update_sequence < excluded.update_sequence) "
+        + "AND job_progress.progress IS DISTINCT FROM excluded.progress "
+        + "RETURNING cast(job_progress.progress as text) AS progress)");
+    }
+    var sql = "WITH " + String.join(", ", ctes) + " "
+      + "SELECT cast(old.batch_status as text), " + JOB_IS_NEWER + ", "
+      + (jobUpdated ? "updated.id IS NOT NULL, " : "false, ")
+      + "coalesce(" + (jobUpdated ? "updated.status, " : "") + "cast(old.status as text)), "
+      + "coalesce(" + (jobUpdated ? "updated.batch_status, " : "") + "cast(old.batch_status as text)), "
+      + "coalesce(" + (jobUpdated ? "updated.file_names, " : "") + "cast(old.file_names as text)), "
+      + (progressUpdated ? "upserted_progress.progress IS NOT NULL, " : "false, ")
+      + "coalesce(" + (progressUpdated ? "upserted_progress.progress, " : "")
+      + "cast(current_progress.progress as text)), "
+      + "(current_progress.update_sequence IS NOT NULL AND current_progress.update_sequence > :sequence) "
+      + "FROM old LEFT JOIN job_progress current_progress ON current_progress.job_id = old.id"
+      + (jobUpdated ? " LEFT JOIN updated ON true" : "")
+      + (progressUpdated ? " LEFT JOIN upserted_progress ON true" : "");
+
+    var query = entityManager.createNativeQuery(sql)
+      .setParameter("id", update.getId())
+      .setParameter("sequence", update.getSequence());
+    if (jobUpdated) {
+      query.setParameter("updatedDate", new Timestamp(System.currentTimeMillis()));
+    }
+    statement.parameters.forEach(query::setParameter);
+
+    @SuppressWarnings("unchecked")
+    List<Object[]> rows = query.getResultList();
+    return rows.stream().findFirst().map(row -> toResult(update.getId(), row, jobUpdated, progressUpdated));
+  }
+
+  /**
+   * Copies the result of a completed leader job to the jobs following it, with one statement for all of them.
+   *
+   * @param leaderId id of the leader job
+   * @return the completed followers, with their id, status, file names and progress
+   */
+  public List<Job> completeFollowers(UUID leaderId) {
+    var sql = "WITH leader AS (SELECT * FROM job WHERE id = :leaderId), "
+      + "followers AS (UPDATE job SET status = leader.status, batch_status = leader.batch_status, "
+      + "exit_status = leader.exit_status, files = leader.files, file_names = leader.file_names, "
+      + "start_time = leader.start_time, end_time = leader.end_time, error_details = leader.error_details, "
+      + "updated_date = :updatedDate FROM leader WHERE job.leader_job_id = leader.id "
+      + "AND job.status IN ('SCHEDULED', 'IN_PROGRESS') "
+      + "RETURNING job.id, cast(job.status as text) AS status, cast(job.file_names as text) AS file_names), "
+      + "leader_progress AS (SELECT progress FROM job_progress WHERE job_id = :leaderId), "
+      + "followers_progress AS (INSERT INTO job_progress (job_id, progress) "
+      + "SELECT followers.id, leader_progress.progress FROM followers, leader_progress "
+      + "ON CONFLICT (job_id) DO UPDATE SET progress = excluded.progress) "
+      + "SELECT followers.id, followers.status, followers.file_names, cast(leader_progress.progress as text) "
+      + "FROM followers LEFT JOIN leader_progress ON true";
+
+    @SuppressWarnings("unchecked")
+    List<Object[]> rows = entityManager.createNativeQuery(sql)
+      .setParameter("leaderId", leaderId)
+      .setParameter("updatedDate", new Timestamp(System.currentTimeMillis()))
+      .getResultList();
+    return rows.stream().map(row -> {
+      var follower = new Job();
+      follower.setId((UUID) row[0]);
+      follower.setStatus(row[1] == null ? null : JobStatus.fromValue((String) row[1]));
+      follower.setFileNames(row[2] == null ? null : ObjectMapperWrapper.INSTANCE.fromString((String) row[2], STRING_LIST.getType()));
+      follower.setProgress(row[3] == null ? null : ObjectMapperWrapper.INSTANCE.fromString((String) row[3], Progress.class));
+      return follower;
+    }).toList();
+  }
+
+  private static JobExecutionUpdateResult toResult(UUID id, Object[] row, boolean jobUpdated, boolean progressUpdated) {
+    var result = new JobExecutionUpdateResult();
+    result.setId(id);
+    result.setPreviousBatchStatus(row[0] == null ? null : BatchStatus.valueOf((String) row[0]));
+    result.setStale(jobUpdated && Boolean.TRUE.equals(row[1]) || progressUpdated && Boolean.TRUE.equals(row[8]));
+    result.setChanged(Boolean.TRUE.equals(row[2]));
+    result.setApplied(result.isChanged() || Boolean.TRUE.equals(row[6]));
+    result.setStatus(row[3] == null ? null : JobStatus.fromValue((String) row[3]));
+    result.setBatchStatus(row[4] == null ? null : BatchStatus.valueOf((String) row[4]));
+    result.setFileNames(row[5] == null ? null : ObjectMapperWrapper.INSTANCE.fromString((String) row[5], STRING_LIST.getType()));
+    result.setProgress(row[7] == null ? null : ObjectMapperWrapper.INSTANCE.fromString((String) row[7], Progress.class));
+    return result;
+  }
+
+  private static String toJson(Object value) {
+    // the same mapper as the jsonb entity attributes
+    return value == null ? null : ObjectMapperWrapper.INSTANCE.toString(value);
+  }
+
+  private static Timestamp toTimestamp(Date date) {
+    return date == null ? null : new Timestamp(date.getTime());
+  }
+
+  /**
+   * Column assignments of an update, with the conditions telling whether they change the job.
+   */
+  private static class UpdateStatement {
+    private final List<String> assignments = new ArrayList<>();
+    private final List<String> changes = new ArrayList<>();
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+    void set(String column, Object value, String type) {
+      if (value != null) {
+        var parameter = column.replace("_", "");
+        parameters.put(parameter, value);
+        setExpression(column, type == null ? ":" + parameter : "cast(:" + parameter + " as " + type + ")");
+      }
+    }
+
+    /**
+     * Sets a jsonb array column, whose elements are compared regardless of their order.
+     */
+    void setUnordered(String column, String value) {
+      if (value != null) {
+        var parameter = column.replace("_", "");
+        var expression = "cast(:" + parameter + " as jsonb)";
+        parameters.put(parameter, value);
+        assignments.add(column + " = " + expression);
+        changes.add("(old." + column + " IS NULL OR " + sortedElements("old." + column) + " IS DISTINCT FROM "
+          + sortedElements(expression) + ")");
+      }
+    }
+
+    private static String sortedElements(String array) {
+      return "(SELECT array_agg(element ORDER BY element) FROM jsonb_array_elements_text(" + array + ") element)";
+    }
+
+    void setNull(String column) {
+      setExpression(column, "NULL");
+    }
+
+    void setExpression(String column, String expression) {
+      assignments.add(column + " = " + expression);
+      changes.add("old." + column + " IS DISTINCT FROM " + expression);
+    }
+  }
+
+  /**
+   * Job execution update, the merge of the updates of a job received together.
+   */
+  @Data
+  public static class JobExecutionUpdate {
+    private UUID id;
+    /** Order of the update, the timestamp of its latest record. */
+    private long sequence;
+    private String description;
+    private List<String> files;
+    private List<String> fileNames;
+    private Date startTime;
+    private Date endTime;
+    private String errorDetails;
+    private boolean clearErrorDetails;
+    private VendorEdiOrdersExportConfig vendorEdiOrdersExportConfig;
+    private BatchStatus batchStatus;
+    private JobStatus status;
+    private ExitStatus exitStatus;
+    private Progress progress;
+  }
+
+  /**
+   * Outcome of a job execution update.
+   */
+  @Data
+  public static class JobExecutionUpdateResult {
+    private UUID id;
+    /** The job has seen a later update, nothing was written. */
+    private boolean stale;
+    /** The update was written. */
+    private boolean applied;
+    /** The update changed the job beyond its progress, the job row was written. */
+    private boolean changed;
+    private BatchStatus previousBatchStatus;
+    private BatchStatus batchStatus;
+    private JobStatus status;
+    private Progress progress;
+    private List<String> fileNames;
+  }
+}
@@ -0,0 +1,46 @@
+package org.folio.des.repository;
+
+import org.folio.de.entity.Job;
+import org.folio.de.entity.JobIdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface JobIdempotencyKeyRepository extends JpaRepository<JobIdempotencyKey, String> {
+
+  /**
+   * Finds the job created with the key by the same request, a single read by the primary keys of both tables.
+   */
+  @Query("SELECT j FROM JobIdempotencyKey k JOIN Job j ON j.id = k.jobId "
+    + "WHERE k.idempotencyKey = :key AND k.requestHash = :requestHash AND k.createdDate >= :createdAfter")
+  Optional<Job> findJobByKey(@Param("key") String key, @Param("requestHash") String requestHash,
+    @Param("createdAfter") Date createdAfter);
+
+  /**
+   * Claims the key for a new job, taking over an expired one. A concurrent claim of the same key waits until the
+   * first one is committed or rolled back.
+   *
+   * @return 1 if the key was claimed, 0 if it is taken
+   */
+  @Modifying
+  @Query(value = "INSERT INTO job_idempotency_key (idempotency_key, request_hash, created_date) "
+    + "VALUES (:key, :requestHash, :createdDate) "
+    + "ON CONFLICT (idempotency_key) DO UPDATE SET job_id = NULL, request_hash = excluded.request_hash, "
+    + "created_date = excluded.created_date WHERE job_idempotency_key.created_date < :createdAfter", nativeQuery = true)
+  int claim(@Param("key") String key, @Param("requestHash") String requestHash, @Param("createdDate") Date createdDate,
+    @Param("createdAfter") Date createdAfter);
+
+  @Modifying
+  @Query("UPDATE JobIdempotencyKey k SET k.jobId = :jobId WHERE k.idempotencyKey = :key")
+  int setJobId(@Param("key") String key, @Param("jobId") UUID jobId);
+
+  @Modifying
+  @Query("DELETE FROM JobIdempotencyKey k WHERE k.createdDate < :createdDate")
+  int deleteByCreatedDateBefore(@Param("createdDate") Date createdDate);
+
+}
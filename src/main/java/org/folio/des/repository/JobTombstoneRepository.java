@@ -0,0 +1,21 @@
+package org.folio.des.repository;
+
+import org.folio.de.entity.JobTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+public interface JobTombstoneRepository extends JpaRepository<JobTombstone, UUID> {
+
+  List<JobTombstone> findByDeletedDateAfter(Date deletedDate);
+
+  @Modifying
+  @Query("DELETE FROM JobTombstone t WHERE t.deletedDate < :deletedDate")
+  int deleteByDeletedDateBefore(@Param("deletedDate") Date deletedDate);
+
+}
@@ -1,23 +1,31 @@
 package org.folio.des.repository.criteria;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.ParameterExpression;
 import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.StringUtils;
 import org.folio.cql2pgjson.exception.CQLFeatureUnsupportedException;
@@ -42,65 +50,374 @@ import lombok.extern.log4j.Log4j2;
 @Log4j2
 public class CQL2JPACriteria<E> {
 
+  private final Class<E> entityCls;
   private final CriteriaBuilder builder;
   private final JsonbNodeToPredicateConverter jsonbNodeToPredicateConverter;
 
-  public final Root<E> root;
+  private Root<E> root;
+  private boolean fetchJoins;
+  private int joins;
+  private Map<CQLNode, List<CQLTermNode>> inLists;
+  private Map<CQLNode, Integer> valueIndexes;
+  private List<CqlParameterBinding<?>> bindings;
   public static final String NOT_EQUALS_OPERATOR = "<>";
-  public final CriteriaQuery<E> criteria;
   private static final String ASTERISKS_SIGN = "*";
+  private static final String ID_ATTRIBUTE = "id";
+  private static final String DEFAULT_KEYSET_SORT_ATTRIBUTE = "createdDate";
+  /** Aliases of the rendered HQL, which only refers to the query root and its joins by alias. */
+  private static final String ROOT_ALIAS = "e";
+  private static final String JOIN_ALIAS_PREFIX = "j";
+  private static final String PARAMETER_PREFIX = "p";
   public static final String CRITERIA_JSONB_START = "jsonb";
 
   public CQL2JPACriteria(Class<E> entityCls, EntityManager entityManager) {
+    this.entityCls = entityCls;
     this.builder = entityManager.getCriteriaBuilder();
     this.jsonbNodeToPredicateConverter = new JsonbNodeToPredicateConverter();
-    criteria = builder.createQuery(entityCls);
-    root = criteria.from(entityCls);
   }
 
   /**
-   * Convert the CQL query into a SQL query and return the WHERE and the ORDER BY clause.
+   * Parse the CQL query.
    *
-   * @param cql the query to convert
-   * @return SQL query
+   * @param cql the query to parse
+   * @return CQL tree
    */
-  public CriteriaQuery<E> toCriteria(String cql) throws QueryValidationException {
+  public static CQLNode parse(String cql) throws QueryValidationException {
     try {
-      CQLParser parser = new CQLParser();
-      CQLNode node = parser.parse(cql);
-      return toCriteria(node);
+      return new CQLParser().parse(cql);
     } catch (IOException | CQLParseException e) {
       throw new QueryValidationException(e);
     }
   }
 
-  private CriteriaQuery<E> toCriteria(CQLNode node)
+  /**
+   * Build the normalized shape of the CQL tree: field names, relations, boolean operators and sort keys,
+   * with term values replaced by placeholders. Queries with the same shape share one query template. An OR chain of
+   * equality terms on one field is a single IN placeholder, whatever the number of its terms.
+   *
+   * @param node the CQL tree
+   * @return normalized query shape
+   */
+  public static String toShape(CQLNode node) throws CQLFeatureUnsupportedException {
+    var shape = new StringBuilder();
+    appendShape(node, shape, CqlInLists.find(node));
+    return shape.toString();
+  }
+
+  /**
+   * Collect the term nodes of the CQL tree in depth-first order, which is the order used by the parameter bindings.
+   *
+   * @param node the CQL tree
+   * @return term nodes
+   */
+  public static List<CQLTermNode> collectTerms(CQLNode node) {
+    List<CQLTermNode> terms = new ArrayList<>();
+    collectTerms(node, terms);
+    return terms;
+  }
+
+  /**
+   * Collect the values bound to the criteria query in depth-first order: the term of each term node, or the list of
+   * terms of an IN list.
+   *
+   * @param node the CQL tree
+   * @return term values
+   */
+  public static List<Object> collectValues(CQLNode node) {
+    var inLists = CqlInLists.find(node);
+    List<CQLNode> valueNodes = new ArrayList<>();
+    collectValueNodes(node, inLists, valueNodes);
+    return valueNodes.stream()
+      .<Object>map(valueNode -> inLists.containsKey(valueNode)
+        ? inLists.get(valueNode).stream().map(CQLTermNode::getTerm).toList()
+        : ((CQLTermNode) valueNode).getTerm())
+      .toList();
+  }
+
+  /**
+   * Convert the CQL query into a criteria query with the WHERE and the ORDER BY clause. Term values are not
+   * inlined, they are bound as parameters when the query is created.
+   *
+   * @param node the CQL tree
+   * @return criteria query
+   */
+  public CqlCriteria<E> toCriteria(CQLNode node) throws QueryValidationException {
+    return toCriteria(builder.createQuery(entityCls), node, List.of());
+  }
+
+  /**
+   * Convert the CQL query into a criteria query selecting only the given attributes, each tuple element is aliased
+   * with its attribute name. Unselected columns are not read, so large jsonb columns can be skipped.
+   *
+   * @param node       the CQL tree
+   * @param attributes the entity attributes to select
+   * @return projection criteria query
+   */
+  public CqlCriteria<Tuple> toCriteria(CQLNode node, List<String> attributes) throws QueryValidationException {
+    return toCriteria(builder.createTupleQuery(), node, attributes);
+  }
+
+  private <R> CqlCriteria<R> toCriteria(CriteriaQuery<R> criteria, CQLNode node, List<String> attributes)
       throws QueryValidationException {
-    Predicate predicates;
+    init(criteria, attributes.isEmpty(), node);
+    select(criteria, attributes);
 
+    Predicate predicates;
     if (node instanceof CQLSortNode cqlSortNode) {
-      processSort(cqlSortNode);
+      criteria.orderBy(processSort(cqlSortNode));
       predicates = process(cqlSortNode.getSubtree());
     } else {
       predicates = process(node);
     }
 
-    return criteria.where(predicates);
+    return new CqlCriteria<>(criteria.where(predicates), List.copyOf(bindings));
+  }
+
+  /**
+   * Convert the CQL query into a keyset pagination criteria query. The CQL sort keys (or {@code createdDate}
+   * descending when the query is not sorted) are extended with {@code id} to make the order unique, and the rows are
+   * continued after the cursor with a seek predicate instead of an offset.
+   *
+   * @param node         the CQL tree
+   * @param cursorValues the decoded cursor, empty for the first page
+   * @return keyset criteria query
+   */
+  public CqlCriteria<E> toKeysetCriteria(CQLNode node, List<String> cursorValues) throws QueryValidationException {
+    return toKeysetCriteria(builder.createQuery(entityCls), node, cursorValues, List.of());
+  }
+
+  /**
+   * Convert the CQL query into a keyset pagination criteria query selecting only the given attributes and the sort
+   * keys, see {@link #toKeysetCriteria(CQLNode, List)} and {@link #toCriteria(CQLNode, List)}.
+   *
+   * @param node         the CQL tree
+   * @param cursorValues the decoded cursor, empty for the first page
+   * @param attributes   the entity attributes to select
+   * @return keyset projection criteria query
+   */
+  public CqlCriteria<Tuple> toKeysetCriteria(CQLNode node, List<String> cursorValues, List<String> attributes)
+      throws QueryValidationException {
+    return toKeysetCriteria(builder.createTupleQuery(), node, cursorValues, attributes);
+  }
+
+  private <R> CqlCriteria<R> toKeysetCriteria(CriteriaQuery<R> criteria, CQLNode node, List<String> cursorValues,
+      List<String> attributes) throws QueryValidationException {
+    init(criteria, attributes.isEmpty(), node);
+
+    List<String> sortKeys = new ArrayList<>();
+    List<Order> orders = new ArrayList<>();
+    if (node instanceof CQLSortNode cqlSortNode) {
+      for (ModifierSet sortIndex : cqlSortNode.getSortIndexes()) {
+        if (StringUtils.startsWithIgnoreCase(sortIndex.getBase(), CRITERIA_JSONB_START)) {
+          throw new CQLFeatureUnsupportedException("Cursor pagination does not support JSONB sort keys: "
+            + sortIndex.getBase());
+        }
+        sortKeys.add(sortIndex.getBase());
+      }
+      orders.addAll(processSort(cqlSortNode));
+      node = cqlSortNode.getSubtree();
+    } else {
+      sortKeys.add(DEFAULT_KEYSET_SORT_ATTRIBUTE);
+      orders.add(builder.desc(root.get(DEFAULT_KEYSET_SORT_ATTRIBUTE)));
+    }
+    if (!ID_ATTRIBUTE.equals(sortKeys.get(sortKeys.size() - 1))) {
+      var ascending = orders.get(orders.size() - 1).isAscending();
+      sortKeys.add(ID_ATTRIBUTE);
+      orders.add(ascending ? builder.asc(root.get(ID_ATTRIBUTE)) : builder.desc(root.get(ID_ATTRIBUTE)));
+    }
+    for (String sortKey : sortKeys) {
+      if (CqlCursor.fromCursorValue(root.get(sortKey).getJavaType()) == null) {
+        throw new CQLFeatureUnsupportedException("Cursor pagination does not support the sort key: " + sortKey);
+      }
+    }
+    criteria.orderBy(orders);
+    if (!attributes.isEmpty()) {
+      // the next cursor is built from the sort keys of the last row
+      Set<String> selected = new LinkedHashSet<>(attributes);
+      selected.addAll(sortKeys);
+      select(criteria, List.copyOf(selected));
+    }
+
+    Predicate predicates = process(node);
+    if (!cursorValues.isEmpty()) {
+      if (cursorValues.size() != sortKeys.size()) {
+        throw new QueryValidationException("Cursor does not match the sort of the query");
+      }
+      predicates = builder.and(predicates, seek(sortKeys, orders, cursorValues));
+    }
+
+    return new CqlCriteria<>(criteria.where(predicates), List.copyOf(bindings), List.copyOf(sortKeys));
+  }
+
+  /**
+   * Build the predicate selecting the rows after the cursor in the sort order: the first sort key is after the cursor
+   * value, or it is equal and the next sort key is after, and so on. PostgreSQL sorts nulls last ascending and first
+   * descending, so nulls are handled explicitly.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private Predicate seek(List<String> sortKeys, List<Order> orders, List<String> cursorValues) {
+    var valueOffset = valueIndexes.size();
+    List<Predicate> alternatives = new ArrayList<>();
+    List<Predicate> ties = new ArrayList<>();
+    for (int i = 0; i < sortKeys.size(); i++) {
+      Path path = root.get(sortKeys.get(i));
+      var isNull = cursorValues.get(i) == null;
+      Expression value = isNull ? null : bind(path.getJavaType(), valueOffset + i, CqlCursor.fromCursorValue(path.getJavaType()));
+
+      Predicate after;
+      if (orders.get(i).isAscending()) {
+        after = isNull ? null : builder.or(builder.greaterThan(path, value), builder.isNull(path));
+      } else {
+        after = isNull ? builder.isNotNull(path) : builder.lessThan(path, value);
+      }
+      if (after != null) {
+        List<Predicate> alternative = new ArrayList<>(ties);
+        alternative.add(after);
+        alternatives.add(builder.and(alternative.toArray(new Predicate[0])));
+      }
+      ties.add(isNull ? builder.isNull(path) : builder.equal(path, value));
+    }
+    return builder.or(alternatives.toArray(new Predicate[0]));
+  }
+
+  /**
+   * Convert the CQL query into a SQL COUNT criteria query with the same WHERE clause. The sort node is ignored.
+   *
+   * @param node the CQL tree
+   * @return count criteria query
+   */
+  public CqlCriteria<Long> toCountCriteria(CQLNode node) throws QueryValidationException {
+    CriteriaQuery<Long> criteria = builder.createQuery(Long.class);
+    init(criteria, false, node);
+
+    if (node instanceof CQLSortNode cqlSortNode) {
+      node = cqlSortNode.getSubtree();
+    }
+
+    criteria.select(builder.count(root)).where(process(node));
+    return new CqlCriteria<>(criteria, List.copyOf(bindings));
+  }
+
+  private void init(CriteriaQuery<?> criteria, boolean fetchJoins, CQLNode node) {
+    this.root = criteria.from(entityCls);
+    this.root.alias(ROOT_ALIAS);
+    this.joins = 0;
+    this.fetchJoins = fetchJoins;
+    this.bindings = new ArrayList<>();
+    this.inLists = CqlInLists.find(node);
+    this.valueIndexes = new IdentityHashMap<>();
+    List<CQLNode> valueNodes = new ArrayList<>();
+    collectValueNodes(node, inLists, valueNodes);
+    for (int i = 0; i < valueNodes.size(); i++) {
+      valueIndexes.put(valueNodes.get(i), i);
+    }
+  }
+
+  private void select(CriteriaQuery<?> criteria, List<String> attributes) {
+    if (!attributes.isEmpty()) {
+      criteria.multiselect(attributes.stream()
+        .<Selection<?>>map(attribute -> root.get(attribute).alias(attribute))
+        .toList());
+    }
+  }
+
+  private static void appendShape(CQLNode node, StringBuilder shape, Map<CQLNode, List<CQLTermNode>> inLists)
+      throws CQLFeatureUnsupportedException {
+    if (inLists.containsKey(node)) {
+      shape.append(inLists.get(node).get(0).getIndex()).append(" in ?");
+    } else if (node instanceof CQLSortNode cqlSortNode) {
+      appendShape(cqlSortNode.getSubtree(), shape, inLists);
+      shape.append(" sortby");
+      for (ModifierSet sortIndex : cqlSortNode.getSortIndexes()) {
+        shape.append(' ').append(sortIndex.toCQL());
+      }
+    } else if (node instanceof CQLTermNode cqlTermNode) {
+      shape.append(cqlTermNode.getIndex())
+        .append(' ')
+        .append(cqlTermNode.getRelation().toCQL())
+        .append(' ')
+        // "*" terms change the generated predicate, see processBoolean
+        .append(ASTERISKS_SIGN.equals(cqlTermNode.getTerm()) ? ASTERISKS_SIGN : "?");
+    } else if (node instanceof CQLBooleanNode cqlBooleanNode) {
+      shape.append('(');
+      appendShape(cqlBooleanNode.getLeftOperand(), shape, inLists);
+      shape.append(' ').append(cqlBooleanNode.getClass().getSimpleName()).append(' ');
+      appendShape(cqlBooleanNode.getRightOperand(), shape, inLists);
+      shape.append(')');
+    } else {
+      throw createUnsupportedException(node);
+    }
+  }
+
+  private static void collectTerms(CQLNode node, List<CQLTermNode> terms) {
+    if (node instanceof CQLSortNode cqlSortNode) {
+      collectTerms(cqlSortNode.getSubtree(), terms);
+    } else if (node instanceof CQLTermNode cqlTermNode) {
+      terms.add(cqlTermNode);
+    } else if (node instanceof CQLBooleanNode cqlBooleanNode) {
+      collectTerms(cqlBooleanNode.getLeftOperand(), terms);
+      collectTerms(cqlBooleanNode.getRightOperand(), terms);
+    }
+  }
+
+  private static void collectValueNodes(CQLNode node, Map<CQLNode, List<CQLTermNode>> inLists,
+      List<CQLNode> valueNodes) {
+    if (inLists.containsKey(node) || node instanceof CQLTermNode) {
+      valueNodes.add(node);
+    } else if (node instanceof CQLSortNode cqlSortNode) {
+      collectValueNodes(cqlSortNode.getSubtree(), inLists, valueNodes);
+    } else if (node instanceof CQLBooleanNode cqlBooleanNode) {
+      collectValueNodes(cqlBooleanNode.getLeftOperand(), inLists, valueNodes);
+      collectValueNodes(cqlBooleanNode.getRightOperand(), inLists, valueNodes);
+    }
+  }
+
+  private <T> ParameterExpression<T> bind(Class<T> type, CQLTermNode node, Function<String, T> converter) {
+    return bind(type, valueIndexes.get(node), converter);
+  }
+
+  private <T> ParameterExpression<T> bind(Class<T> type, int valueIndex, Function<String, T> converter) {
+    return addBinding(type, valueIndex, value -> converter.apply((String) value));
   }
 
-  private void processSort(CQLSortNode node) throws CQLFeatureUnsupportedException {
+  @SuppressWarnings("unchecked")
+  private <T> ParameterExpression<T> bindList(Class<T> type, CQLNode node, Function<List<String>, T> converter) {
+    return addBinding(type, valueIndexes.get(node), value -> converter.apply((List<String>) value));
+  }
+
+  /**
+   * Bind a constant of the shape, e.g. a jsonb path element, so the rendered HQL holds no literals.
+   */
+  private ParameterExpression<String> bindConstant(String value) {
+    return addBinding(String.class, CqlParameterBinding.CONSTANT, ignored -> value);
+  }
+
+  private <T> ParameterExpression<T> addBinding(Class<T> type, int valueIndex, Function<Object, T> converter) {
+    var name = PARAMETER_PREFIX + bindings.size();
+    ParameterExpression<T> parameter = builder.parameter(type, name);
+    bindings.add(new CqlParameterBinding<>(name, valueIndex, converter, List.class.equals(type)));
+    return parameter;
+  }
+
+  private List<Order> processSort(CQLSortNode node) throws CQLFeatureUnsupportedException {
     List<Order> orders = new ArrayList<>();
     for (ModifierSet sortIndex : node.getSortIndexes()) {
       final CqlModifiers modifiers = new CqlModifiers(sortIndex);
+      final Expression<?> sortKey = StringUtils.startsWithIgnoreCase(sortIndex.getBase(), CRITERIA_JSONB_START)
+          ? jsonbNodeToPredicateConverter.toTextExpression(builder, root, sortIndex.getBase(), this::bindConstant)
+          : root.get(sortIndex.getBase());
       orders.add(
           CqlSort.DESCENDING.equals(modifiers.getCqlSort())
-              ? builder.desc(root.get(sortIndex.getBase()))
-              : builder.asc(root.get(sortIndex.getBase())));
+              ? builder.desc(sortKey)
+              : builder.asc(sortKey));
     }
-    criteria.orderBy(orders);
+    return orders;
   }
 
   private Predicate process(CQLNode node) throws QueryValidationException {
+    if (inLists.containsKey(node)) {
+      return processInList(node, inLists.get(node));
+    }
     if (node instanceof CQLTermNode cqlTermNode) {
       return processTerm(cqlTermNode);
     }
@@ -113,7 +430,6 @@ public class CQL2JPACriteria<E> {
   private static CQLFeatureUnsupportedException createUnsupportedException(CQLNode node) {
     return new CQLFeatureUnsupportedException("Not implemented yet: " + node.getClass().getName());
   }
-
   private Predicate processBoolean(CQLBooleanNode node) throws QueryValidationException {
     if (node instanceof CQLAndNode) {
       return builder.and(process(node.getLeftOperand()), process(node.getRightOperand()));
@@ -136,12 +452,36 @@ public class CQL2JPACriteria<E> {
     }
   }
 
+  /**
+   * Translate an OR chain of equality terms into one IN predicate. Where the column type allows it the terms are bound
+   * as a single array, otherwise as a list parameter, which Hibernate expands.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private Predicate processInList(CQLNode node, List<CQLTermNode> terms) {
+    Path field = root.get(terms.get(0).getIndex());
+    Class<?> javaType = field.getJavaType();
+    var inListFunction = CqlFunctionContributor.getInListFunction(javaType);
+    if (inListFunction.isPresent()) {
+      Function<String, String> validator = UUID.class.equals(javaType)
+        ? term -> UUID.fromString(term).toString()
+        : term -> javaType.isEnum() ? toEnumName(javaType, term) : term;
+      var values = bindList(String.class, node,
+        list -> CqlInLists.toArrayLiteral(list.stream().map(validator).toList()));
+      return builder.isTrue(builder.function(inListFunction.get(), Boolean.class, field, values));
+    }
+    Function<String, ?> converter = toValueConverter(javaType);
+    Expression values = bindList(List.class, node, list -> list.stream().map(converter).toList());
+    Expression target = javaType.isEnum() ? field.as(String.class) : field;
+    return target.in(values);
+  }
+
   private Predicate processTerm(CQLTermNode node) throws QueryValidationException {
     String fieldName = node.getIndex();
     if ("cql.allRecords".equalsIgnoreCase(fieldName)) {
       return builder.and();
     } else if (StringUtils.startsWithIgnoreCase(fieldName, CRITERIA_JSONB_START)) {
-      return jsonbNodeToPredicateConverter.convert(node, builder, root);
+      return jsonbNodeToPredicateConverter.convert(node, builder, root, converter -> bind(String.class, node, converter),
+        this::bindConstant);
     }
 
     var field = getPath(fieldName);
@@ -154,15 +494,19 @@ public class CQL2JPACriteria<E> {
       final int dotIdx = fieldName.indexOf(".");
       final String attributeName = fieldName.substring(0, dotIdx);
       Join<E, Object> children = root.join(attributeName, JoinType.LEFT);
-      root.fetch(attributeName);
+      children.alias(JOIN_ALIAS_PREFIX + joins++);
+      if (fetchJoins) {
+        root.fetch(attributeName);
+      }
       return children.get(fieldName.substring(dotIdx + 1));
     } else {
       return root.get(fieldName);
     }
   }
 
-  private <E extends Comparable<? super E>> Predicate toPredicate(
-      Expression<E> field, E value, String comparator) throws QueryValidationException {
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private Predicate toPredicate(
+      Expression field, Expression value, String comparator) throws QueryValidationException {
 
     return switch (comparator) {
       case ">" -> builder.greaterThan(field, value);
@@ -213,10 +557,11 @@ public class CQL2JPACriteria<E> {
   /** Create an SQL expression using LIKE query syntax. */
   private Predicate queryByLike(Path<String> field, CQLTermNode node, String comparator) {
 
+    var pattern = bind(String.class, node, Cql2SqlUtil::cql2like);
     if (NOT_EQUALS_OPERATOR.equals(comparator)) {
-      return builder.notLike(field, Cql2SqlUtil.cql2like(node.getTerm()));
+      return builder.notLike(field, pattern);
     } else {
-      return builder.like(field, Cql2SqlUtil.cql2like(node.getTerm()));
+      return builder.like(field, pattern);
     }
   }
 
@@ -224,22 +569,53 @@ public class CQL2JPACriteria<E> {
   private Predicate queryBySql(Expression field, CQLTermNode node, String comparator)
       throws QueryValidationException {
 
-    Comparable val = node.getTerm();
+    ParameterExpression<?> val;
 
     Class<?> javaType = field.getJavaType();
     if (Number.class.equals(javaType)) {
-      val = Integer.parseInt((String) val);
+      val = bind(Integer.class, node, Integer::parseInt);
     } else if (UUID.class.equals(javaType)) {
-      val = UUID.fromString((String) val);
+      val = bind(UUID.class, node, UUID::fromString);
     } else if (Boolean.class.equals(javaType)) {
-      val = Boolean.valueOf((String) val);
+      val = bind(Boolean.class, node, Boolean::valueOf);
     } else if (Date.class.equals(javaType)) {
-      LocalDateTime dateTime = LocalDateTime.parse((String) val);
-      val = Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
-    } else if (javaType.isEnum()) {
-      field = field.as(String.class);
+      val = bind(Date.class, node, CQL2JPACriteria::toDate);
+    } else if (javaType.isEnum() && CqlFunctionContributor.getEnumCastFunction(javaType).isPresent()) {
+      // compare in the column type, so the column indexes can be used
+      val = bind(String.class, node, term -> toEnumName(javaType, term));
+      return toPredicate(field,
+        builder.function(CqlFunctionContributor.getEnumCastFunction(javaType).get(), javaType, val), comparator);
+    } else {
+      if (javaType.isEnum()) {
+        field = field.as(String.class);
+      }
+      val = bind(String.class, node, Function.identity());
     }
 
     return toPredicate(field, val, comparator);
   }
+
+  private static Function<String, ?> toValueConverter(Class<?> javaType) {
+    if (Number.class.equals(javaType)) {
+      return Integer::parseInt;
+    } else if (UUID.class.equals(javaType)) {
+      return UUID::fromString;
+    } else if (Boolean.class.equals(javaType)) {
+      return Boolean::valueOf;
+    } else if (Date.class.equals(javaType)) {
+      return CQL2JPACriteria::toDate;
+    }
+    return Function.identity();
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static String toEnumName(Class<?> type, String term) {
+    // an unknown value is a bad request rather than a database cast error
+    return Enum.valueOf((Class) type, term).name();
+  }
+
+  private static Date toDate(String term) {
+    LocalDateTime dateTime = LocalDateTime.parse(term);
+    return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+  }
 }
@@ -0,0 +1,27 @@
+package org.folio.des.repository.criteria;
+
+import jakarta.persistence.criteria.CriteriaQuery;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Criteria query built from a CQL tree. Term values are not part of the criteria, they are bound as named parameters,
+ * so all queries of the same shape produce the same HQL. The criteria is mutable and only built to be rendered into
+ * a {@link CqlQueryTemplate}.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CqlCriteria<T> {
+
+  private final CriteriaQuery<T> criteria;
+  private final List<CqlParameterBinding<?>> bindings;
+  /** Attributes the keyset cursor is built from, empty for offset queries. */
+  private final List<String> sortKeys;
+
+  public CqlCriteria(CriteriaQuery<T> criteria, List<CqlParameterBinding<?>> bindings) {
+    this(criteria, bindings, List.of());
+  }
+}
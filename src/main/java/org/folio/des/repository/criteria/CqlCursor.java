@@ -0,0 +1,102 @@
+package org.folio.des.repository.criteria;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import lombok.experimental.UtilityClass;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.PropertyAccessorFactory;
+
+/**
+ * Opaque keyset pagination cursor. It holds the sort key values of the last returned row, each value is
+ * base64url encoded and the values are joined with dots, null values are written as {@value #NULL_VALUE}.
+ */
+@UtilityClass
+public class CqlCursor {
+
+  private static final String SEPARATOR = ".";
+  private static final String NULL_VALUE = "~";
+
+  /**
+   * Build the cursor pointing after the given row.
+   *
+   * @param sortKeys the sort key attributes
+   * @param row      the last returned row
+   * @return encoded cursor
+   */
+  public static String encode(List<String> sortKeys, Object row) {
+    var accessor = PropertyAccessorFactory.forBeanPropertyAccess(row);
+    List<String> values = new ArrayList<>();
+    for (String sortKey : sortKeys) {
+      var value = accessor.getPropertyValue(sortKey);
+      values.add(value == null ? NULL_VALUE : Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(toCursorValue(value).getBytes(StandardCharsets.UTF_8)));
+    }
+    return String.join(SEPARATOR, values);
+  }
+
+  /**
+   * Decode the cursor.
+   *
+   * @param cursor the encoded cursor
+   * @return sort key values, an empty list for the first page
+   */
+  public static List<String> decode(String cursor) {
+    if (StringUtils.isBlank(cursor)) {
+      return List.of();
+    }
+    try {
+      return Arrays.stream(cursor.split("\\" + SEPARATOR, -1))
+        .map(value -> NULL_VALUE.equals(value) ? null : new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8))
+        .toList();
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(String.format("Invalid cursor: %s", cursor), e);
+    }
+  }
+
+  private static String toCursorValue(Object value) {
+    if (value instanceof Timestamp timestamp) {
+      // keep sub-millisecond precision of the database value
+      return timestamp.toInstant().toString();
+    } else if (value instanceof Date date) {
+      return date.toInstant().toString();
+    } else if (value instanceof Enum<?> enumValue) {
+      return enumValue.name();
+    }
+    return value.toString();
+  }
+
+  /**
+   * Get the parser of cursor values of a sort key type.
+   *
+   * @param type the Java type of the sort key
+   * @return parser, {@code null} if the type cannot be a cursor sort key
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  static <T> Function<String, T> fromCursorValue(Class<T> type) {
+    if (Date.class.isAssignableFrom(type)) {
+      return value -> (T) Timestamp.from(Instant.parse(value));
+    } else if (UUID.class.equals(type)) {
+      return value -> (T) UUID.fromString(value);
+    } else if (Boolean.class.equals(type)) {
+      return value -> (T) Boolean.valueOf(value);
+    } else if (Integer.class.equals(type)) {
+      return value -> (T) Integer.valueOf(value);
+    } else if (Long.class.equals(type)) {
+      return value -> (T) Long.valueOf(value);
+    } else if (String.class.equals(type)) {
+      return value -> (T) value;
+    } else if (type.isEnum()) {
+      return value -> (T) Enum.valueOf((Class) type, value);
+    }
+    return null;
+  }
+}
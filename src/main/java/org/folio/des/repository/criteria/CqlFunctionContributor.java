@@ -0,0 +1,86 @@
+package org.folio.des.repository.criteria;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.folio.des.domain.dto.EntityType;
+import org.folio.des.domain.dto.ExportType;
+import org.folio.des.domain.dto.IdentifierType;
+import org.folio.des.domain.dto.JobStatus;
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.query.sqm.function.SqmFunctionRegistry;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.batch.core.BatchStatus;
+
+/**
+ * Registers the SQL functions used by the CQL criteria.
+ * <ul>
+ *   <li>Containment is rendered with the {@code @>} operator rather than the {@code jsonb_contains} function, only
+ *   the operator can use a GIN index.</li>
+ *   <li>Enum terms are cast to the PostgreSQL enum type of the column. Casting the column to text instead would not
+ *   be indexable, the enum output function is not immutable.</li>
+ *   <li>IN lists of uuid, text and enum columns are bound as one array literal and compared with {@code = any(...)},
+ *   so the SQL does not change with the number of values and the column indexes can be used.</li>
+ * </ul>
+ */
+public class CqlFunctionContributor implements FunctionContributor {
+
+  public static final String JSONB_CONTAINS_FUNC = "jsonb_contains";
+
+  private static final String ENUM_CAST_FUNC_PREFIX = "cast_as_";
+  private static final String IN_LIST_FUNC_PREFIX = "in_";
+  /** Element types of the IN list functions, other than the enums. */
+  private static final Map<Class<?>, String> IN_LIST_SQL_TYPES = Map.of(UUID.class, "uuid", String.class, "text");
+  /** Enums stored in PostgreSQL enum types of the same name. */
+  private static final List<Class<? extends Enum<?>>> DB_ENUMS = List.of(ExportType.class, JobStatus.class,
+    BatchStatus.class, IdentifierType.class, EntityType.class);
+
+  @Override
+  public void contributeFunctions(FunctionContributions functionContributions) {
+    var functionRegistry = functionContributions.getFunctionRegistry();
+    var booleanType = functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+      .resolve(StandardBasicTypes.BOOLEAN);
+    functionRegistry.registerPattern(JSONB_CONTAINS_FUNC, "(?1 @> cast(?2 as jsonb))", booleanType);
+    for (Class<? extends Enum<?>> dbEnum : DB_ENUMS) {
+      functionRegistry.patternDescriptorBuilder(ENUM_CAST_FUNC_PREFIX + dbEnum.getSimpleName(),
+          "cast(?1 as " + dbEnum.getSimpleName() + ")")
+        .setExactArgumentCount(1)
+        .register();
+      registerInListFunction(functionRegistry, dbEnum.getSimpleName(), booleanType);
+    }
+    IN_LIST_SQL_TYPES.values().forEach(sqlType -> registerInListFunction(functionRegistry, sqlType, booleanType));
+  }
+
+  private static void registerInListFunction(SqmFunctionRegistry functionRegistry, String sqlType,
+      BasicType<Boolean> booleanType) {
+    functionRegistry.registerPattern(IN_LIST_FUNC_PREFIX + sqlType, "(?1 = any(cast(?2 as " + sqlType + "[])))",
+      booleanType);
+  }
+
+  /**
+   * Get the function casting a text value to the database enum type of the given enum.
+   *
+   * @param type the enum class
+   * @return function name, empty if the enum is not stored as a database enum
+   */
+  public static Optional<String> getEnumCastFunction(Class<?> type) {
+    return DB_ENUMS.contains(type) ? Optional.of(ENUM_CAST_FUNC_PREFIX + type.getSimpleName()) : Optional.empty();
+  }
+
+  /**
+   * Get the function testing whether a column value is one of the elements of an array literal.
+   *
+   * @param type the column type
+   * @return function name, empty if the type has no IN list function
+   */
+  public static Optional<String> getInListFunction(Class<?> type) {
+    if (DB_ENUMS.contains(type)) {
+      return Optional.of(IN_LIST_FUNC_PREFIX + type.getSimpleName());
+    }
+    return Optional.ofNullable(IN_LIST_SQL_TYPES.get(type)).map(sqlType -> IN_LIST_FUNC_PREFIX + sqlType);
+  }
+}
@@ -0,0 +1,131 @@
+package org.folio.des.repository.criteria;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.experimental.UtilityClass;
+import org.apache.commons.lang3.StringUtils;
+import org.z3950.zing.cql.CQLBooleanNode;
+import org.z3950.zing.cql.CQLNode;
+import org.z3950.zing.cql.CQLOrNode;
+import org.z3950.zing.cql.CQLSortNode;
+import org.z3950.zing.cql.CQLTermNode;
+
+/**
+ * Rewrite stage of the CQL translation: finds OR chains of equality terms on the same field, e.g.
+ * {@code id==(a or b or c)}, which are translated into one IN predicate instead of a nested OR per term. The whole
+ * chain is bound as a single list value, so the query shape does not depend on the number of terms.
+ * The tree is walked iteratively, chains of thousands of terms are as deep as they are long.
+ */
+@UtilityClass
+class CqlInLists {
+
+  private static final Set<String> EQUALITY_RELATIONS = Set.of("=", "==");
+  /** Characters with a special meaning in a CQL term, such terms are not plain equality. */
+  private static final String SPECIAL_TERM_CHARS = "*?^\\";
+
+  /**
+   * Find the maximal OR chains of equality terms on the same field.
+   *
+   * @param root the CQL tree
+   * @return terms of each chain in depth-first order, keyed by the root node of the chain
+   */
+  static Map<CQLNode, List<CQLTermNode>> find(CQLNode root) {
+    // children are visited after their parents, so the reversed order is bottom-up
+    List<CQLNode> order = new ArrayList<>();
+    Deque<CQLNode> pending = new ArrayDeque<>();
+    pending.push(root);
+    while (!pending.isEmpty()) {
+      var node = pending.pop();
+      order.add(node);
+      if (node instanceof CQLSortNode cqlSortNode) {
+        pending.push(cqlSortNode.getSubtree());
+      } else if (node instanceof CQLBooleanNode cqlBooleanNode) {
+        pending.push(cqlBooleanNode.getRightOperand());
+        pending.push(cqlBooleanNode.getLeftOperand());
+      }
+    }
+
+    Map<CQLNode, String> chainFields = new IdentityHashMap<>();
+    for (int i = order.size() - 1; i >= 0; i--) {
+      if (order.get(i) instanceof CQLOrNode cqlOrNode) {
+        var left = getChainField(cqlOrNode.getLeftOperand(), chainFields);
+        if (left != null && left.equals(getChainField(cqlOrNode.getRightOperand(), chainFields))) {
+          chainFields.put(cqlOrNode, left);
+        }
+      }
+    }
+
+    // top-down again, a chain that is part of a larger one is not descended into
+    Map<CQLNode, List<CQLTermNode>> inLists = new IdentityHashMap<>();
+    pending.push(root);
+    while (!pending.isEmpty()) {
+      var node = pending.pop();
+      if (chainFields.containsKey(node)) {
+        inLists.put(node, collectChain(node));
+      } else if (node instanceof CQLSortNode cqlSortNode) {
+        pending.push(cqlSortNode.getSubtree());
+      } else if (node instanceof CQLBooleanNode cqlBooleanNode) {
+        pending.push(cqlBooleanNode.getRightOperand());
+        pending.push(cqlBooleanNode.getLeftOperand());
+      }
+    }
+    return inLists;
+  }
+
+  /**
+   * Encode the values as a PostgreSQL array literal, e.g. {@code {"a","b"}}.
+   *
+   * @param values the array elements
+   * @return array literal
+   */
+  static String toArrayLiteral(List<String> values) {
+    var literal = new StringBuilder("{");
+    for (String value : values) {
+      if (literal.length() > 1) {
+        literal.append(',');
+      }
+      literal.append('"').append(value.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+    }
+    return literal.append('}').toString();
+  }
+
+  private static String getChainField(CQLNode node, Map<CQLNode, String> chainFields) {
+    if (node instanceof CQLTermNode cqlTermNode) {
+      return isEqualityTerm(cqlTermNode) ? cqlTermNode.getIndex() : null;
+    }
+    return chainFields.get(node);
+  }
+
+  private static boolean isEqualityTerm(CQLTermNode node) {
+    var index = node.getIndex();
+    return EQUALITY_RELATIONS.contains(node.getRelation().getBase())
+      && node.getRelation().getModifiers().isEmpty()
+      && !index.contains(".")
+      && !"cql.allRecords".equalsIgnoreCase(index)
+      && !StringUtils.startsWithIgnoreCase(index, CQL2JPACriteria.CRITERIA_JSONB_START)
+      && StringUtils.isNotEmpty(node.getTerm())
+      && StringUtils.containsNone(node.getTerm(), SPECIAL_TERM_CHARS);
+  }
+
+  private static List<CQLTermNode> collectChain(CQLNode chain) {
+    List<CQLTermNode> terms = new ArrayList<>();
+    Deque<CQLNode> pending = new ArrayDeque<>();
+    pending.push(chain);
+    while (!pending.isEmpty()) {
+      var node = pending.pop();
+      if (node instanceof CQLOrNode cqlOrNode) {
+        pending.push(cqlOrNode.getRightOperand());
+        pending.push(cqlOrNode.getLeftOperand());
+      } else {
+        terms.add((CQLTermNode) node);
+      }
+    }
+    return terms;
+  }
+}
@@ -0,0 +1,41 @@
+package org.folio.des.repository.criteria;
+
+import jakarta.persistence.Query;
+
+import java.util.List;
+import java.util.function.Function;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Binds one raw value (a CQL term, the terms of an IN list or a cursor value) to a named parameter of a
+ * {@link CqlQueryTemplate}, or a constant of the query shape, e.g. a jsonb path element.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CqlParameterBinding<T> {
+
+  /** Value index of a binding whose value is part of the shape. */
+  static final int CONSTANT = -1;
+
+  private final String name;
+  private final int valueIndex;
+  private final Function<Object, T> converter;
+  /** Whether the value is a list Hibernate expands into one JDBC parameter per element. */
+  private final boolean multiValued;
+
+  public void bind(Query query, List<?> values) {
+    query.setParameter(name, convert(values));
+  }
+
+  /**
+   * Convert the raw value of this binding.
+   *
+   * @param values the raw values of the query
+   * @return parameter value
+   */
+  public T convert(List<?> values) {
+    return converter.apply(valueIndex == CONSTANT ? null : values.get(valueIndex));
+  }
+}
@@ -0,0 +1,149 @@
+package org.folio.des.repository.criteria;
+
+import io.hypersistence.utils.hibernate.query.SQLExtractor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.folio.cql2pgjson.exception.QueryValidationException;
+import org.hibernate.query.sqm.tree.select.SqmSelectStatement;
+import org.z3950.zing.cql.CQLNode;
+
+/**
+ * Immutable query template of a CQL shape, safe to share between threads and entity managers. The criteria of the
+ * shape is built once and rendered to HQL with named parameters, every query of the shape is created from that HQL,
+ * so Hibernate parses and translates it once and serves the later queries from its query plan cache. A template can
+ * also keep the SQL Hibernate translates the HQL to, for statements over the same query sent on the JDBC connection,
+ * e.g. EXPLAIN.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class CqlQueryTemplate<T> {
+
+  private static final Pattern PARAMETER = Pattern.compile(":(\\w+)");
+
+  private final String hql;
+  private final Class<T> resultType;
+  /** How the values of a CQL tree of the shape are bound to the named parameters of the HQL. */
+  private final List<CqlParameterBinding<?>> bindings;
+  /** Attributes the keyset cursor is built from, empty for offset queries. */
+  private final List<String> sortKeys;
+  /** SQL of the HQL with positional parameters, {@code null} if not rendered or not the same for all queries. */
+  private final String sql;
+  /** Bindings of the positional parameters of the SQL, in order. */
+  private final List<CqlParameterBinding<?>> sqlBindings;
+
+  /**
+   * Compile the template of the shape of the given CQL tree, a shape that cannot be translated is rejected here.
+   *
+   * @param entityManager the entity manager
+   * @param node          a CQL tree of the shape
+   * @param cursorValues  the keyset cursor values
+   * @param factory       builds the criteria of the shape
+   * @return query template
+   */
+  public static <T> CqlQueryTemplate<T> compile(EntityManager entityManager, CQLNode node, List<String> cursorValues,
+      CriteriaFactory<T> factory) throws QueryValidationException {
+    var cqlCriteria = factory.build(entityManager, node, cursorValues);
+    var criteria = cqlCriteria.getCriteria();
+    var hql = new StringBuilder();
+    ((SqmSelectStatement<T>) criteria).appendHqlString(hql);
+    return new CqlQueryTemplate<>(hql.toString(), criteria.getResultType(), cqlCriteria.getBindings(),
+      cqlCriteria.getSortKeys(), null, List.of());
+  }
+
+  /**
+   * Compile the template like {@link #compile}, keeping the SQL of the HQL too. A shape with an IN list Hibernate
+   * expands into one parameter per element has no SQL, its SQL depends on the number of elements.
+   *
+   * @param entityManager the entity manager
+   * @param node          a CQL tree of the shape
+   * @param factory       builds the criteria of the shape
+   * @return query template with SQL
+   */
+  public static <T> CqlQueryTemplate<T> compileWithSql(EntityManager entityManager, CQLNode node,
+      CriteriaFactory<T> factory) throws QueryValidationException {
+    var template = compile(entityManager, node, List.of(), factory);
+    if (template.bindings.stream().anyMatch(CqlParameterBinding::isMultiValued)) {
+      return template;
+    }
+    var sql = SQLExtractor.from(template.createQuery(entityManager, node));
+    // each occurrence of a named parameter in the HQL is one positional parameter of the SQL, in the same order
+    Map<String, CqlParameterBinding<?>> bindingsByName = template.bindings.stream()
+      .collect(Collectors.toMap(CqlParameterBinding::getName, Function.identity()));
+    List<CqlParameterBinding<?>> sqlBindings = new ArrayList<>();
+    var parameters = PARAMETER.matcher(template.hql);
+    while (parameters.find()) {
+      sqlBindings.add(bindingsByName.get(parameters.group(1)));
+    }
+    return new CqlQueryTemplate<>(template.hql, template.resultType, template.bindings, template.sortKeys, sql,
+      List.copyOf(sqlBindings));
+  }
+
+  public TypedQuery<T> createQuery(EntityManager entityManager, CQLNode node) {
+    return createQuery(entityManager, node, List.of());
+  }
+
+  /**
+   * Create the query for the given CQL tree of this template's shape.
+   *
+   * @param entityManager the entity manager
+   * @param node          the CQL tree, its values are bound first
+   * @param cursorValues  the keyset cursor values, bound after the terms
+   * @return query with all parameters bound
+   */
+  public TypedQuery<T> createQuery(EntityManager entityManager, CQLNode node, List<String> cursorValues) {
+    TypedQuery<T> query = entityManager.createQuery(hql, resultType);
+    List<Object> values = new ArrayList<>(CQL2JPACriteria.collectValues(node));
+    values.addAll(cursorValues);
+    bindings.forEach(binding -> binding.bind(query, values));
+    return query;
+  }
+
+  /**
+   * Prepare a statement of the SQL of this template on the connection, with all parameters bound.
+   *
+   * @param connection the connection
+   * @param prefix     prepended to the SQL, e.g. {@code EXPLAIN}
+   * @param node       the CQL tree of this template's shape
+   * @return prepared statement
+   */
+  public PreparedStatement prepareStatement(Connection connection, String prefix, CQLNode node) throws SQLException {
+    if (sql == null) {
+      throw new IllegalStateException("The query template has no SQL: " + hql);
+    }
+    List<Object> values = CQL2JPACriteria.collectValues(node);
+    var statement = connection.prepareStatement(prefix + sql);
+    try {
+      for (int i = 0; i < sqlBindings.size(); i++) {
+        var value = sqlBindings.get(i).convert(values);
+        statement.setObject(i + 1, value instanceof Date date && !(value instanceof Timestamp)
+          ? new Timestamp(date.getTime()) : value);
+      }
+      return statement;
+    } catch (SQLException | RuntimeException e) {
+      statement.close();
+      throw e;
+    }
+  }
+
+  @FunctionalInterface
+  public interface CriteriaFactory<T> {
+    CqlCriteria<T> build(EntityManager entityManager, CQLNode node, List<String> cursorValues)
+        throws QueryValidationException;
+  }
+}
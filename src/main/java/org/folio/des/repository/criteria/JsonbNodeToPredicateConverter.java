@@ -1,49 +1,135 @@
 package org.folio.des.repository.criteria;
 
 import static org.folio.des.repository.criteria.CQL2JPACriteria.CRITERIA_JSONB_START;
+import static org.folio.des.repository.criteria.CQL2JPACriteria.NOT_EQUALS_OPERATOR;
 
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import jakarta.validation.constraints.NotNull;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 
+import org.folio.cql2pgjson.exception.CQLFeatureUnsupportedException;
 import org.z3950.zing.cql.CQLTermNode;
 
+/**
+ * Converts {@code jsonb.<column>.<path>...} CQL terms of any depth. Equality is expressed as jsonb containment
+ * ({@code column @> '{"path":{"to":"value"}}'}), which is served by the GIN index of the column. A term that is a
+ * JSON number or boolean also matches a leaf of that type through a second containment document. The other relations
+ * and sorting use {@code jsonb_extract_path_text}.
+ */
 public class JsonbNodeToPredicateConverter {
 
   public static final String JSONB_EXTRACT_PATH_TEXT_FUNC = "jsonb_extract_path_text";
+  private static final Pattern JSON_NUMBER = Pattern.compile("-?(0|[1-9]\\d*)(\\.\\d+)?([eE][+-]?\\d+)?");
 
-  public Predicate convert(CQLTermNode node, CriteriaBuilder cb, Root<?> root) {
+  /**
+   * Binds the term of the converted node as a query parameter.
+   */
+  @FunctionalInterface
+  public interface TermBinder {
+    Expression<String> bind(Function<String, String> converter);
+  }
+
+  /**
+   * Binds a constant of the query shape, e.g. a path element, as a query parameter.
+   */
+  @FunctionalInterface
+  public interface ConstantBinder {
+    Expression<String> bind(String value);
+  }
+
+  public Predicate convert(CQLTermNode node, CriteriaBuilder cb, Root<?> root, TermBinder binder,
+      ConstantBinder constants) throws CQLFeatureUnsupportedException {
     List<String> fieldNames = getFieldNames(node.getIndex());
-    int fieldsNumber = fieldNames.size();
-    if (fieldsNumber > 0) {
-      String rootFieldName = fieldNames.get(0);
-      Expression<String> expression = cb.function(JSONB_EXTRACT_PATH_TEXT_FUNC, String.class, root.<String>get(rootFieldName));
-      if (fieldsNumber == 2) {
-        expression = cb.function(JSONB_EXTRACT_PATH_TEXT_FUNC, String.class, root.<String>get(rootFieldName),
-          cb.literal(fieldNames.get(1)));
-      } else if (fieldsNumber == 3) {
-        expression = cb.function(JSONB_EXTRACT_PATH_TEXT_FUNC, String.class, root.<String>get(rootFieldName),
-          cb.literal(fieldNames.get(1)), cb.literal(fieldNames.get(2)));
-      } else if (fieldsNumber == 4) {
-        expression = cb.function(JSONB_EXTRACT_PATH_TEXT_FUNC, String.class, root.<String>get(rootFieldName),
-          cb.literal(fieldNames.get(1)), cb.literal(fieldNames.get(2)), cb.literal(fieldNames.get(3)));
-      }
-      return expression.in(node.getTerm());
+    String comparator = node.getRelation().getBase();
+    switch (comparator) {
+      case "=", "==":
+        if (fieldNames.size() == 1) {
+          return cb.equal(toTextExpression(cb, root, fieldNames, constants), binder.bind(Function.identity()));
+        }
+        // the term matches a string leaf, or a number or boolean leaf written the same way, like the text comparison
+        var document = binder.bind(term -> toContainmentDocument(fieldNames, term, false));
+        var typedDocument = binder.bind(term -> toContainmentDocument(fieldNames, term, true));
+        return cb.or(contains(cb, root, fieldNames, document), contains(cb, root, fieldNames, typedDocument));
+      case NOT_EQUALS_OPERATOR:
+        return cb.notEqual(toTextExpression(cb, root, fieldNames, constants), binder.bind(Function.identity()));
+      default:
+        throw new CQLFeatureUnsupportedException(
+          "Relation " + comparator + " not implemented yet for JSONB criteria: " + node);
+    }
+  }
+
+  /**
+   * Build the text value expression of the jsonb path, e.g. for sorting.
+   *
+   * @param cb       the criteria builder
+   * @param root     the query root
+   * @param jsonPath the CQL index, {@code jsonb.<column>.<path>...}
+   * @param constants binds the path elements
+   * @return text value of the path
+   */
+  public Expression<String> toTextExpression(CriteriaBuilder cb, Root<?> root, String jsonPath,
+      ConstantBinder constants) {
+    return toTextExpression(cb, root, getFieldNames(jsonPath), constants);
+  }
+
+  private Expression<String> toTextExpression(CriteriaBuilder cb, Root<?> root, List<String> fieldNames,
+      ConstantBinder constants) {
+    List<Expression<?>> arguments = new ArrayList<>();
+    arguments.add(root.get(fieldNames.get(0)));
+    fieldNames.stream().skip(1).map(constants::bind).forEach(arguments::add);
+    return cb.function(JSONB_EXTRACT_PATH_TEXT_FUNC, String.class, arguments.toArray(new Expression<?>[0]));
+  }
+
+  private Predicate contains(CriteriaBuilder cb, Root<?> root, List<String> fieldNames, Expression<String> document) {
+    return cb.isTrue(cb.function(CqlFunctionContributor.JSONB_CONTAINS_FUNC, Boolean.class,
+      root.get(fieldNames.get(0)), document));
+  }
+
+  /**
+   * Build the containment document of the path with the value as leaf.
+   *
+   * @param fieldNames the column and the path
+   * @param value      the term
+   * @param typed      whether a term that is a JSON number or boolean is written as such, otherwise it is a string
+   * @return containment document
+   */
+  static String toContainmentDocument(List<String> fieldNames, String value, boolean typed) {
+    ObjectNode document = JsonNodeFactory.instance.objectNode();
+    ObjectNode parent = document;
+    for (String fieldName : fieldNames.subList(1, fieldNames.size() - 1)) {
+      parent = parent.putObject(fieldName);
+    }
+    var leaf = fieldNames.get(fieldNames.size() - 1);
+    if (typed && JSON_NUMBER.matcher(value).matches()) {
+      parent.put(leaf, new BigDecimal(value));
+    } else if (typed && ("true".equals(value) || "false".equals(value))) {
+      parent.put(leaf, Boolean.parseBoolean(value));
     } else {
-      throw new IllegalArgumentException(String.format("Wrong JSONB criteria: %s", node.getIndex()));
+      parent.put(leaf, value);
     }
+    return document.toString();
   }
 
   @NotNull
-  private List<String> getFieldNames(String jsonPath) {
-    return Arrays.stream(jsonPath.split("\\."))
+  static List<String> getFieldNames(String jsonPath) {
+    List<String> fieldNames = Arrays.stream(jsonPath.split("\\."))
                                     .filter(fieldName -> !CRITERIA_JSONB_START.equals(fieldName))
                                     .toList();
+    if (fieldNames.isEmpty()) {
+      throw new IllegalArgumentException(String.format("Wrong JSONB criteria: %s", jsonPath));
+    }
+    return fieldNames;
   }
 
 }
@@ -0,0 +1,89 @@
+package org.folio.des.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Encrypts the Okapi tokens kept with the job command records until they are sent, so the commands reach the worker
+ * with the identity of the request that caused them without a credential at rest. AES-GCM with a key shared by the
+ * module instances, without one each instance uses a random key and sends only the records it wrote itself.
+ */
+@Component
+@Log4j2
+public class TokenCipher {
+
+  private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+  private static final int IV_LENGTH = 12;
+  private static final int TAG_BITS = 128;
+
+  private final SecretKey key;
+  private final SecureRandom random = new SecureRandom();
+
+  public TokenCipher(@Value("${application.job-command-outbox.token-key:}") String key) {
+    if (StringUtils.isBlank(key)) {
+      log.warn("No job command outbox token key set, the records are sent by the instance that wrote them only.");
+      this.key = generateKey();
+    } else {
+      this.key = new SecretKeySpec(Base64.getDecoder().decode(key), "AES");
+    }
+  }
+
+  /**
+   * Encrypts the token.
+   *
+   * @return base64 of the IV followed by the cipher text
+   */
+  public String encrypt(String token) {
+    try {
+      var iv = new byte[IV_LENGTH];
+      random.nextBytes(iv);
+      var cipher = Cipher.getInstance(TRANSFORMATION);
+      cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+      var encrypted = cipher.doFinal(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + encrypted.length)
+        .put(iv)
+        .put(encrypted)
+        .array());
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Can't encrypt token", e);
+    }
+  }
+
+  /**
+   * Decrypts a token encrypted by {@link #encrypt(String)}.
+   *
+   * @throws IllegalStateException if the token was encrypted with another key or changed
+   */
+  public String decrypt(String encryptedToken) {
+    try {
+      var bytes = Base64.getDecoder().decode(encryptedToken);
+      var cipher = Cipher.getInstance(TRANSFORMATION);
+      cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, bytes, 0, IV_LENGTH));
+      return new String(cipher.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH), StandardCharsets.UTF_8);
+    } catch (GeneralSecurityException | IllegalArgumentException e) {
+      throw new IllegalStateException("Can't decrypt token, it was encrypted with another key", e);
+    }
+  }
+
+  private static SecretKey generateKey() {
+    try {
+      var generator = KeyGenerator.getInstance("AES");
+      generator.init(256);
+      return generator.generateKey();
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Can't generate token key", e);
+    }
+  }
+}
@@ -0,0 +1,330 @@
+package org.folio.des.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.folio.de.entity.JobCommandOutboxMessage;
+import org.folio.des.domain.dto.JobDispatchStatus;
+import org.folio.des.domain.dto.JobStatus;
+import org.folio.des.repository.JobCommandOutboxRepository;
+import org.folio.des.repository.JobDataExportRepository;
+import org.folio.des.repository.JobExecutionUpdateRepository;
+import org.folio.des.security.TokenCipher;
+import org.folio.spring.DefaultFolioExecutionContext;
+import org.folio.spring.FolioModuleMetadata;
+import org.folio.spring.integration.XOkapiHeaders;
+import org.folio.spring.scope.FolioExecutionScopeExecutionContextManager;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Sends the records of the job command outbox to Kafka on a dedicated thread. Each batch is locked with
+ * {@code FOR UPDATE SKIP LOCKED}, so several module instances relay different records, sent without waiting for each
+ * other and deleted once acknowledged. A record that can't be sent stays and is retried with the next batch.
+ * The relay polls the outbox of every tenant and is woken up as soon as a record is committed on this instance.
+ * Delivery callbacks run on a dedicated thread, never on the producer I/O thread. The delivery of a job command sets
+ * the dispatch status of the job, a command that still fails after the last attempt fails its job.
+ * The records are sent with the token of the request that wrote them, kept encrypted until then.
+ */
+@Component
+@Log4j2
+public class JobCommandOutboxRelay implements SmartLifecycle {
+
+  private static final String PROBE_TENANT = "tenant";
+  private static final int MAX_ERROR_LENGTH = 1000;
+
+  private final JobCommandOutboxRepository repository;
+  private final JobDataExportRepository jobRepository;
+  private final JobExecutionUpdateRepository updateRepository;
+  private final JobEventsService jobEventsService;
+  private final KafkaTemplate<String, byte[]> kafkaTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final FolioModuleMetadata folioModuleMetadata;
+  private final TokenCipher tokenCipher;
+  private final int batchSize;
+  private final Duration pollInterval;
+  private final Duration sendTimeout;
+  /** Longest time from sending a record to the producer giving up on it. */
+  private final Duration sendWindow;
+  private final int maxAttempts;
+  private final Counter sentCounter;
+  private final Counter failedCounter;
+  private final Counter abandonedCounter;
+  private final Timer deliveryTimer;
+  private ExecutorService callbackExecutor;
+  private final Semaphore wakeUps = new Semaphore(0);
+  private volatile long pendingCount;
+  private volatile long lagMillis;
+  private volatile boolean running;
+  private Thread thread;
+
+  public JobCommandOutboxRelay(JobCommandOutboxRepository repository, JobDataExportRepository jobRepository,
+      JobExecutionUpdateRepository updateRepository, JobEventsService jobEventsService,
+      @Qualifier("outboxKafkaTemplate") KafkaTemplate<String, byte[]> kafkaTemplate,
+      TransactionTemplate transactionTemplate, FolioModuleMetadata folioModuleMetadata, TokenCipher tokenCipher,
+      @Value("${application.job-command-outbox.batch-size:100}") int batchSize,
+      @Value("${application.job-command-outbox.poll-interval:5s}") Duration pollInterval,
+      @Value("${application.job-command-outbox.send-timeout:30s}") Duration sendTimeout,
+      @Value("${application.job-command-outbox.max-attempts:10}") int maxAttempts, MeterRegistry meterRegistry) {
+    this.repository = repository;
+    this.jobRepository = jobRepository;
+    this.updateRepository = updateRepository;
+    this.jobEventsService = jobEventsService;
+    this.kafkaTemplate = kafkaTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.folioModuleMetadata = folioModuleMetadata;
+    this.tokenCipher = tokenCipher;
+    this.batchSize = batchSize;
+    this.pollInterval = pollInterval;
+    this.sendTimeout = sendTimeout;
+    var producerConfig = kafkaTemplate.getProducerFactory().getConfigurationProperties();
+    this.sendWindow = Duration.ofMillis(toMillis(producerConfig.get(ProducerConfig.MAX_BLOCK_MS_CONFIG), 60_000)
+      + toMillis(producerConfig.get(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG), 120_000));
+    this.maxAttempts = maxAttempts;
+    this.sentCounter = meterRegistry.counter("job.commands.outbox.sent");
+    this.failedCounter = meterRegistry.counter("job.commands.outbox.failed");
+    this.abandonedCounter = meterRegistry.counter("job.commands.outbox.abandoned");
+    this.deliveryTimer = Timer.builder("job.commands.delivery.latency")
+      .description("Time from writing a job command record to its acknowledgement by Kafka")
+      .register(meterRegistry);
+    Gauge.builder("job.commands.outbox.pending", this, relay -> relay.pendingCount)
+      .description("Job command records waiting in the outboxes")
+      .register(meterRegistry);
+    Gauge.builder("job.commands.outbox.lag", this, relay -> relay.lagMillis / 1000.0)
+      .description("Seconds the oldest job command record has been waiting in an outbox")
+      .baseUnit("seconds")
+      .register(meterRegistry);
+  }
+
+  @Override
+  public void start() {
+    callbackExecutor = Executors.newSingleThreadExecutor(runnable -> {
+      var callbackThread = new Thread(runnable, "job-command-delivery-callbacks");
+      callbackThread.setDaemon(true);
+      return callbackThread;
+    });
+    running = true;
+    thread = new Thread(this::relay, "job-command-outbox-relay");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    if (thread != null) {
+      thread.interrupt();
+    }
+    if (callbackExecutor != null) {
+      callbackExecutor.shutdown();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Makes the relay poll the outboxes now, e.g. after a record was committed.
+   */
+  public void wakeUp() {
+    if (wakeUps.availablePermits() == 0) {
+      wakeUps.release();
+    }
+  }
+
+  private void relay() {
+    while (running) {
+      try {
+        relayTenants();
+      } catch (Exception e) {
+        log.warn("Job command outbox relay failed, retrying: {}", e.getMessage());
+      }
+      try {
+        wakeUps.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        wakeUps.drainPermits();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        running = false;
+      }
+    }
+  }
+
+  private void relayTenants() {
+    long pending = 0;
+    long lag = 0;
+    for (String tenant : getTenants()) {
+      beginContext(tenant);
+      try {
+        while (running && Boolean.TRUE.equals(transactionTemplate.execute(status -> relayBatch()))) {
+          // the batch was full, more records may be waiting
+        }
+        pending += repository.count();
+        Date oldest = repository.findOldestCreatedDate();
+        if (oldest != null) {
+          lag = Math.max(lag, System.currentTimeMillis() - oldest.getTime());
+        }
+      } catch (Exception e) {
+        // the other tenants are relayed anyway
+        log.warn("Can't relay the job command outbox of tenant {}, retrying: {}", tenant, e.getMessage());
+      } finally {
+        FolioExecutionScopeExecutionContextManager.endFolioExecutionContext();
+      }
+    }
+    pendingCount = pending;
+    lagMillis = lag;
+  }
+
+  /**
+   * Sends a batch of records and deletes the acknowledged ones.
+   *
+   * @return whether the batch was full
+   */
+  private boolean relayBatch() {
+    var messages = repository.lockNext(batchSize);
+    if (messages.isEmpty()) {
+      return false;
+    }
+    var deadline = System.nanoTime() + sendTimeout.toNanos();
+    List<JobCommandOutboxMessage> queued = new ArrayList<>();
+    List<CompletableFuture<SendResult<String, byte[]>>> futures = new ArrayList<>();
+    for (var message : messages) {
+      if (deadline - System.nanoTime() < sendWindow.toNanos()) {
+        // the producer might still deliver it after the wait, it is sent with the next batch instead
+        break;
+      }
+      queued.add(message);
+      futures.add(send(message));
+    }
+    List<JobCommandOutboxMessage> sent = new ArrayList<>();
+    for (int i = 0; i < queued.size(); i++) {
+      var message = queued.get(i);
+      try {
+        futures.get(i).get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        sent.add(message);
+      } catch (ExecutionException | TimeoutException e) {
+        onFailure(message, e instanceof ExecutionException ? e.getCause() : e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    if (!sent.isEmpty()) {
+      repository.deleteByIdIn(sent.stream().map(JobCommandOutboxMessage::getId).toList());
+      var jobIds = sent.stream().map(JobCommandOutboxMessage::getJobId).filter(Objects::nonNull).toList();
+      if (!jobIds.isEmpty()) {
+        jobRepository.updateDispatchStatus(jobIds, JobDispatchStatus.SENT);
+      }
+      log.info("Sent {} job command records.", sent.size());
+    }
+    return messages.size() == batchSize && sent.size() == messages.size();
+  }
+
+  private CompletableFuture<SendResult<String, byte[]>> send(JobCommandOutboxMessage message) {
+    CompletableFuture<SendResult<String, byte[]>> delivery;
+    try {
+      delivery = kafkaTemplate.send(toProducerRecord(message));
+    } catch (Exception e) {
+      // e.g. the topic metadata or the token key is missing, the other records are sent anyway
+      delivery = CompletableFuture.failedFuture(e);
+    }
+    return delivery.whenCompleteAsync((result, e) -> {
+      if (e == null) {
+        deliveryTimer.record(System.currentTimeMillis() - message.getCreatedDate().getTime(), TimeUnit.MILLISECONDS);
+        sentCounter.increment();
+      } else {
+        failedCounter.increment();
+      }
+    }, callbackExecutor);
+  }
+
+  private void onFailure(JobCommandOutboxMessage message, Throwable e) {
+    var error = StringUtils.abbreviate(ExceptionUtils.getRootCauseMessage(e), MAX_ERROR_LENGTH);
+    if (message.getAttempts() + 1 < maxAttempts) {
+      log.warn("Can't send job command record {} to {}, retrying: {}", message.getId(), message.getTopic(), error);
+      repository.recordFailure(message.getId(), error);
+      return;
+    }
+    log.error("Can't send job command record {} to {} after {} attempts: {}", message.getId(), message.getTopic(),
+      maxAttempts, error);
+    abandonedCounter.increment();
+    repository.deleteByIdIn(List.of(message.getId()));
+    if (message.getJobId() != null) {
+      jobRepository.findById(message.getJobId()).ifPresent(job -> {
+        job.setDispatchStatus(JobDispatchStatus.FAILED);
+        // a job whose start command is lost would stay scheduled forever, a job past that, e.g. a resent one, keeps
+        // its status and error details
+        if (job.getStatus() == JobStatus.SCHEDULED) {
+          job.setStatus(JobStatus.FAILED);
+          job.setErrorDetails("Job command could not be sent: " + error);
+        }
+        job.setUpdatedDate(new Date());
+        jobEventsService.publish(jobRepository.saveAndFlush(job));
+        if (job.getStatus() == JobStatus.FAILED) {
+          // the jobs following the failed one would wait for ever
+          updateRepository.completeFollowers(job.getId()).forEach(jobEventsService::publish);
+        }
+      });
+    }
+  }
+
+  private void beginContext(String tenant) {
+    FolioExecutionScopeExecutionContextManager.beginFolioExecutionContext(new DefaultFolioExecutionContext(
+      folioModuleMetadata, Map.<String, Collection<String>>of(XOkapiHeaders.TENANT, List.of(tenant))));
+  }
+
+  private static long toMillis(Object config, long defaultMillis) {
+    return config == null ? defaultMillis : Long.parseLong(String.valueOf(config));
+  }
+
+  /**
+   * Returns the tenants of the module, the ones whose schema has an outbox.
+   */
+  List<String> getTenants() {
+    // the schema of a tenant is the tenant id followed by the module suffix
+    var suffix = folioModuleMetadata.getDBSchemaName(PROBE_TENANT).substring(PROBE_TENANT.length());
+    return repository.findSchemas().stream()
+      .filter(schema -> schema.endsWith(suffix) && schema.length() > suffix.length())
+      .map(schema -> schema.substring(0, schema.length() - suffix.length()))
+      .toList();
+  }
+
+  private ProducerRecord<String, byte[]> toProducerRecord(JobCommandOutboxMessage message) {
+    var headers = new RecordHeaders();
+    if (message.getHeaders() != null) {
+      message.getHeaders().forEach((name, value) -> headers.add(name, value.getBytes(StandardCharsets.UTF_8)));
+    }
+    if (message.getEncryptedToken() != null) {
+      headers.add(XOkapiHeaders.TOKEN, tokenCipher.decrypt(message.getEncryptedToken()).getBytes(StandardCharsets.UTF_8));
+    }
+    return new ProducerRecord<>(message.getTopic(), null, message.getMessageKey(), message.getPayload(), headers);
+  }
+}
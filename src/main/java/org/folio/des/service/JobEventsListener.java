@@ -0,0 +1,98 @@
+package org.folio.des.service;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import lombok.extern.log4j.Log4j2;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listens to the job events channel on a dedicated database connection and hands the notifications to
+ * {@link JobEventsService}. The connection is opened from the datasource properties outside the connection pool, so
+ * the listener, which holds it as long as it runs, does not take a connection from the requests. The connection is
+ * reopened after a failure, events notified meanwhile are lost, the subscribers get the state of a job again with its
+ * next change.
+ */
+@Component
+@Log4j2
+public class JobEventsListener implements SmartLifecycle {
+
+  private static final int POLL_TIMEOUT_MILLIS = 10_000;
+  private static final long RECONNECT_DELAY_MILLIS = 5_000;
+
+  private final DataSourceProperties dataSourceProperties;
+  private final JobEventsService jobEventsService;
+  private final boolean enabled;
+  private volatile boolean running;
+  private Thread thread;
+
+  public JobEventsListener(DataSourceProperties dataSourceProperties, JobEventsService jobEventsService,
+      @Value("${application.job-events.enabled:true}") boolean enabled) {
+    this.dataSourceProperties = dataSourceProperties;
+    this.jobEventsService = jobEventsService;
+    this.enabled = enabled;
+  }
+
+  @Override
+  public void start() {
+    if (!enabled) {
+      log.info("Job events are disabled.");
+      return;
+    }
+    running = true;
+    thread = new Thread(this::listen, "job-events-listener");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void listen() {
+    while (running) {
+      try (var connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+          dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+           var statement = connection.createStatement()) {
+        statement.execute("LISTEN " + JobEventsService.CHANNEL);
+        var pgConnection = connection.unwrap(PGConnection.class);
+        log.info("Listening to {}.", JobEventsService.CHANNEL);
+        while (running) {
+          PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+          if (notifications != null) {
+            for (PGNotification notification : notifications) {
+              jobEventsService.dispatch(notification.getParameter());
+            }
+          }
+        }
+      } catch (SQLException e) {
+        if (running) {
+          log.warn("Job events connection failed, reconnecting: {}", e.getMessage());
+          pause();
+        }
+      }
+    }
+  }
+
+  private void pause() {
+    try {
+      Thread.sleep(RECONNECT_DELAY_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+}
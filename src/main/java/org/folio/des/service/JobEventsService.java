@@ -0,0 +1,274 @@
+package org.folio.des.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.folio.de.entity.Job;
+import org.folio.des.domain.dto.JobStatus;
+import org.folio.des.domain.dto.JobStatusSummary;
+import org.folio.des.service.impl.JobServiceImpl;
+import org.folio.spring.FolioExecutionContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes job status and progress changes to Server-Sent Events subscribers. Changes are published with
+ * PostgreSQL {@code NOTIFY} from the updating transaction, so they are only delivered after the commit, and every
+ * module instance receives them through {@link JobEventsListener}, whichever instance a subscriber is connected to.
+ * A subscriber or waiter only holds an asynchronous request, not a thread.
+ */
+@Service
+@Log4j2
+public class JobEventsService {
+
+  public static final String CHANNEL = "data_export_job_events";
+  public static final String JOB_EVENT_NAME = "job";
+  /** NOTIFY payloads must be shorter than 8000 bytes. */
+  private static final int MAX_PAYLOAD_BYTES = 7999;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  private final ObjectMapper objectMapper;
+  private final FolioExecutionContext context;
+  private final long emitterTimeout;
+  private final Duration maxWaitTimeout;
+  /** Subscribers of all jobs of a tenant. */
+  private final Map<String, Set<SseEmitter>> tenantEmitters = new ConcurrentHashMap<>();
+  /** Subscribers of a single job, keyed by tenant and job id. */
+  private final Map<String, Set<SseEmitter>> jobEmitters = new ConcurrentHashMap<>();
+  /** Requests waiting for a job status, keyed by tenant and job id. */
+  private final Map<String, Set<JobWaiter>> jobWaiters = new ConcurrentHashMap<>();
+
+  public JobEventsService(ObjectMapper objectMapper, FolioExecutionContext context,
+      @Value("${application.job-events.emitter-timeout:1800000}") long emitterTimeout,
+      @Value("${application.job-events.max-wait-timeout:60s}") Duration maxWaitTimeout, MeterRegistry meterRegistry) {
+    this.objectMapper = objectMapper;
+    this.context = context;
+    this.emitterTimeout = emitterTimeout;
+    this.maxWaitTimeout = maxWaitTimeout;
+    Gauge.builder("job.events.subscribers", this, JobEventsService::getSubscriberCount)
+      .description("Open job event streams")
+      .register(meterRegistry);
+    Gauge.builder("job.events.waiters", this, JobEventsService::getWaiterCount)
+      .description("Requests waiting for a job status")
+      .register(meterRegistry);
+  }
+
+  /**
+   * Subscribes to the job events of the tenant.
+   *
+   * @param tenant the tenant
+   * @param jobId  the job to follow, all jobs of the tenant if null
+   * @return emitter of the event stream
+   */
+  public SseEmitter subscribe(String tenant, UUID jobId) {
+    var emitters = jobId == null ? tenantEmitters : jobEmitters;
+    var key = jobId == null ? tenant : toJobKey(tenant, jobId);
+    var emitter = new SseEmitter(emitterTimeout);
+    emitter.onCompletion(() -> remove(emitters, key, emitter));
+    emitter.onTimeout(emitter::complete);
+    emitter.onError(e -> remove(emitters, key, emitter));
+    emitters.compute(key, (k, subscribers) -> {
+      var result = subscribers == null ? ConcurrentHashMap.<SseEmitter>newKeySet() : subscribers;
+      result.add(emitter);
+      return result;
+    });
+    return emitter;
+  }
+
+  /**
+   * Waits until the job of the tenant reaches one of the statuses. The result is completed with the job state when
+   * the job is already in or changes to one of them, or with the latest known state on timeout.
+   *
+   * @param tenant   the tenant
+   * @param jobId    the job
+   * @param statuses the statuses to wait for
+   * @param timeout  how long to wait, capped by the maximum wait timeout
+   * @param current  reads the current job state, called once the waiter is registered so no change is missed
+   * @return result completed with the job state
+   */
+  public DeferredResult<JobStatusSummary> await(String tenant, UUID jobId, Set<JobStatus> statuses, Duration timeout,
+      Supplier<JobStatusSummary> current) {
+    var key = toJobKey(tenant, jobId);
+    var waitTimeout = timeout.compareTo(maxWaitTimeout) > 0 ? maxWaitTimeout : timeout;
+    var waiter = new JobWaiter(statuses,
+      // a zero timeout would disable the servlet timeout, it returns the current state instead
+      new DeferredResult<>(Math.max(waitTimeout.toMillis(), 1L)));
+    var result = waiter.getResult();
+    result.onCompletion(() -> remove(jobWaiters, key, waiter));
+    result.onTimeout(() -> result.setResult(waiter.getLatest().get()));
+    jobWaiters.compute(key, (k, waiters) -> {
+      var waitersOfJob = waiters == null ? ConcurrentHashMap.<JobWaiter>newKeySet() : waiters;
+      waitersOfJob.add(waiter);
+      return waitersOfJob;
+    });
+
+    JobStatusSummary summary;
+    try {
+      summary = current.get();
+    } catch (RuntimeException e) {
+      remove(jobWaiters, key, waiter);
+      throw e;
+    }
+    // an event dispatched meanwhile is at least as recent as the state read and has been offered already
+    if (waiter.getLatest().compareAndSet(null, summary)) {
+      waiter.offer(summary);
+    }
+    return result;
+  }
+
+  private static <T> void remove(Map<String, Set<T>> subscriptions, String key, T subscriber) {
+    // the set of a key is dropped with its last subscriber
+    subscriptions.computeIfPresent(key, (k, subscribers) -> {
+      subscribers.remove(subscriber);
+      return subscribers.isEmpty() ? null : subscribers;
+    });
+  }
+
+  /**
+   * Sends the current state of a job to a single subscriber. Events hold the whole status and progress, so a
+   * subscriber that missed one is up to date again with the next.
+   *
+   * @param emitter the subscriber
+   * @param summary the job state
+   */
+  public void sendSnapshot(SseEmitter emitter, JobStatusSummary summary) {
+    send(emitter, summary);
+  }
+
+  /**
+   * Publishes the job change of the current tenant. Must be called within the transaction updating the job.
+   *
+   * @param job the changed job
+   */
+  public void publish(Job job) {
+    var event = new JobEvent(context.getTenantId(), JobServiceImpl.entityToStatusSummary(job));
+    try {
+      var payload = objectMapper.writeValueAsString(event);
+      if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+        event.getJob().setFileNames(null);
+        payload = objectMapper.writeValueAsString(event);
+      }
+      entityManager.createNativeQuery("SELECT 1 FROM pg_notify(?1, ?2)")
+        .setParameter(1, CHANNEL)
+        .setParameter(2, payload)
+        .getSingleResult();
+    } catch (JsonProcessingException e) {
+      log.error("Can not publish event of job {}.", job.getId(), e);
+    }
+  }
+
+  /**
+   * Delivers a notification received from the database to the subscribers of its tenant and job.
+   *
+   * @param payload the notification payload
+   */
+  public void dispatch(String payload) {
+    JobEvent event;
+    try {
+      event = objectMapper.readValue(payload, JobEvent.class);
+    } catch (JsonProcessingException e) {
+      log.error("Invalid job event {}.", payload, e);
+      return;
+    }
+    var jobKey = toJobKey(event.getTenant(), event.getJob().getId());
+    Stream.concat(
+        tenantEmitters.getOrDefault(event.getTenant(), Set.of()).stream(),
+        jobEmitters.getOrDefault(jobKey, Set.of()).stream())
+      .forEach(emitter -> send(emitter, event.getJob()));
+    jobWaiters.getOrDefault(jobKey, Set.of()).forEach(waiter -> waiter.offer(event.getJob()));
+  }
+
+  /**
+   * Keeps idle streams open through proxies and drops the ones of gone clients.
+   */
+  @Scheduled(fixedDelayString = "${application.job-events.heartbeat-interval:30000}")
+  public void sendHeartbeats() {
+    Stream.concat(tenantEmitters.values().stream(), jobEmitters.values().stream())
+      .flatMap(Set::stream)
+      .forEach(emitter -> {
+        try {
+          emitter.send(SseEmitter.event().comment("heartbeat"));
+        } catch (IOException | IllegalStateException e) {
+          emitter.completeWithError(e);
+        }
+      });
+  }
+
+  public int getSubscriberCount() {
+    return Stream.concat(tenantEmitters.values().stream(), jobEmitters.values().stream())
+      .mapToInt(Set::size)
+      .sum();
+  }
+
+  public int getWaiterCount() {
+    return jobWaiters.values().stream().mapToInt(Set::size).sum();
+  }
+
+  private void send(SseEmitter emitter, JobStatusSummary summary) {
+    try {
+      emitter.send(SseEmitter.event().name(JOB_EVENT_NAME).data(summary, MediaType.APPLICATION_JSON));
+    } catch (IOException | IllegalStateException e) {
+      log.debug("Dropping job event subscriber: {}", e.getMessage());
+      emitter.completeWithError(e);
+    }
+  }
+
+  private static String toJobKey(String tenant, UUID jobId) {
+    return tenant + ":" + jobId;
+  }
+
+  /**
+   * Request waiting for a job status.
+   */
+  @Getter
+  @RequiredArgsConstructor
+  private static class JobWaiter {
+    private final Set<JobStatus> statuses;
+    private final DeferredResult<JobStatusSummary> result;
+    /** Latest known job state, the result on timeout. */
+    private final AtomicReference<JobStatusSummary> latest = new AtomicReference<>();
+
+    void offer(JobStatusSummary summary) {
+      latest.set(summary);
+      if (statuses.contains(summary.getStatus())) {
+        result.setResult(summary);
+      }
+    }
+  }
+
+  /**
+   * Notification payload.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class JobEvent {
+    private String tenant;
+    private JobStatusSummary job;
+  }
+}
@@ -5,6 +5,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -88,15 +89,36 @@ public class  JobExecutionService {
     paramsBuilder.addString(EDIFACT_ORDERS_EXPORT_KEY, objectMapper.writeValueAsString(vendorEdiOrdersExportConfig));
   }
 
+  /**
+   * Sends the command through the outbox, with the transaction of the job change it belongs to.
+   */
   public void sendJobCommand(JobCommand jobCommand) {
-    kafka.send(KafkaService.Topic.JOB_COMMAND, jobCommand.getId().toString(), jobCommand);
+    // the id of a delete command is not a job id
+    var jobId = jobCommand.getType() == JobCommand.Type.DELETE ? null : jobCommand.getId();
+    kafka.sendViaOutbox(KafkaService.Topic.JOB_COMMAND, jobCommand.getId().toString(), jobCommand, jobId);
   }
 
-  public void deleteJobs(List<Job> jobs) {
+  /**
+   * Sends the start commands of several jobs through the outbox together, with the transaction of the jobs.
+   */
+  public void sendJobCommands(List<JobCommand> jobCommands) {
+    kafka.sendAllViaOutbox(KafkaService.Topic.JOB_COMMAND, jobCommands, jobCommand -> jobCommand.getId().toString(),
+      JobCommand::getId);
+  }
+
+  /**
+   * Queues the deletion of the files of the jobs.
+   *
+   * @param jobs the deleted jobs
+   * @param sharedFiles files of the jobs still referenced by other jobs, e.g. ones that reused their result, kept
+   */
+  public void deleteJobs(List<Job> jobs, Set<String> sharedFiles) {
     List<String> files = jobs.stream()
         .map(Job::getFiles)
         .filter(CollectionUtils::isNotEmpty)
         .flatMap(Collection::stream)
+        .filter(file -> !sharedFiles.contains(file))
+        .distinct()
         .toList();
     if (CollectionUtils.isEmpty(files)) {
       return;
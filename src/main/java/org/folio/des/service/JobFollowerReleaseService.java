@@ -0,0 +1,112 @@
+package org.folio.des.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.log4j.Log4j2;
+import org.folio.de.entity.Job;
+import org.folio.des.domain.dto.JobDispatchStatus;
+import org.folio.des.domain.dto.JobStatus;
+import org.folio.des.repository.JobDataExportRepository;
+import org.folio.spring.DefaultFolioExecutionContext;
+import org.folio.spring.FolioModuleMetadata;
+import org.folio.spring.integration.XOkapiHeaders;
+import org.folio.spring.scope.FolioExecutionScopeExecutionContextManager;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bounds the wait of the jobs following an in-flight job with the same parameters. A follower whose leader has not
+ * completed within the wait, e.g. a leader stuck in progress after a worker crash, is detached from it and started
+ * on its own. The followers are locked with {@code FOR UPDATE SKIP LOCKED}, so a follower is released by one module
+ * instance only and never while its leader completes it.
+ */
+@Service
+@Log4j2
+public class JobFollowerReleaseService {
+
+  private static final int BATCH_SIZE = 100;
+
+  private final JobDataExportRepository repository;
+  private final JobExecutionService jobExecutionService;
+  private final JobEventsService jobEventsService;
+  private final JobCommandOutboxRelay outboxRelay;
+  private final TransactionTemplate transactionTemplate;
+  private final FolioModuleMetadata folioModuleMetadata;
+  private final Duration maxFollowerWait;
+  private final Counter released;
+
+  public JobFollowerReleaseService(JobDataExportRepository repository, JobExecutionService jobExecutionService,
+      JobEventsService jobEventsService, JobCommandOutboxRelay outboxRelay, TransactionTemplate transactionTemplate,
+      FolioModuleMetadata folioModuleMetadata,
+      @Value("${application.job-single-flight.max-follower-wait:1h}") Duration maxFollowerWait,
+      MeterRegistry meterRegistry) {
+    this.repository = repository;
+    this.jobExecutionService = jobExecutionService;
+    this.jobEventsService = jobEventsService;
+    this.outboxRelay = outboxRelay;
+    this.transactionTemplate = transactionTemplate;
+    this.folioModuleMetadata = folioModuleMetadata;
+    this.maxFollowerWait = maxFollowerWait;
+    this.released = Counter.builder("job.single-flight.released")
+      .description("Followers started on their own because their leader did not complete in time")
+      .register(meterRegistry);
+  }
+
+  /**
+   * Starts the followers of every tenant that have waited longer than the follower wait.
+   */
+  @Scheduled(fixedDelayString = "${application.job-single-flight.release-interval:60000}")
+  public void releaseStaleFollowers() {
+    for (String tenant : outboxRelay.getTenants()) {
+      FolioExecutionScopeExecutionContextManager.beginFolioExecutionContext(new DefaultFolioExecutionContext(
+        folioModuleMetadata, Map.<String, Collection<String>>of(XOkapiHeaders.TENANT, List.of(tenant))));
+      try {
+        while (Boolean.TRUE.equals(transactionTemplate.execute(status -> releaseBatch()))) {
+          // the batch was full, more followers may be waiting
+        }
+      } catch (Exception e) {
+        log.warn("Can't release the stale followers of tenant {}, retrying: {}", tenant, e.getMessage());
+      } finally {
+        FolioExecutionScopeExecutionContextManager.endFolioExecutionContext();
+      }
+    }
+  }
+
+  /**
+   * Releases a batch of stale followers and queues their start commands.
+   *
+   * @return whether the batch was full
+   */
+  private boolean releaseBatch() {
+    var createdBefore = new Date(System.currentTimeMillis() - maxFollowerWait.toMillis());
+    var followers = repository.findFollowersCreatedBefore(createdBefore, PageRequest.ofSize(BATCH_SIZE));
+    if (followers.isEmpty()) {
+      return false;
+    }
+    var now = new Date();
+    repository.releaseFollowers(followers.stream().map(Job::getId).toList(), now);
+    for (Job follower : followers) {
+      log.info("Starting job {} on its own, its leader {} did not complete within {}.", follower.getId(),
+        follower.getLeaderJobId(), maxFollowerWait);
+      follower.setLeaderJobId(null);
+      follower.setStatus(JobStatus.SCHEDULED);
+      follower.setBatchStatus(BatchStatus.UNKNOWN);
+      follower.setStartTime(null);
+      follower.setDispatchStatus(JobDispatchStatus.PENDING);
+      follower.setUpdatedDate(now);
+      jobExecutionService.sendJobCommand(jobExecutionService.prepareStartJobCommand(follower));
+      jobEventsService.publish(follower);
+    }
+    released.increment(followers.size());
+    return followers.size() == BATCH_SIZE;
+  }
+}
@@ -0,0 +1,74 @@
+package org.folio.des.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.folio.des.repository.JobExecutionUpdateRepository.JobExecutionUpdate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the latest progress-only update of each job until it is flushed, so a job gets at most one progress write per
+ * flush interval however often the worker reports progress. Pending progress is kept in memory only, a lost tick is
+ * replaced by the next one or by the final state of the job.
+ */
+@Component
+public class JobProgressDebouncer {
+
+  /** Pending progress updates by tenant and job id. */
+  private final Map<String, Map<UUID, JobExecutionUpdate>> pending = new ConcurrentHashMap<>();
+
+  public JobProgressDebouncer(MeterRegistry meterRegistry) {
+    Gauge.builder("job.updates.progress.pending", this, JobProgressDebouncer::getPendingCount)
+      .description("Progress updates waiting to be flushed")
+      .register(meterRegistry);
+  }
+
+  /**
+   * Keeps the update unless a later one of the same job is already pending.
+   *
+   * @param tenant tenant of the job
+   * @param update progress-only update
+   */
+  public void offer(String tenant, JobExecutionUpdate update) {
+    pending.computeIfAbsent(tenant, t -> new ConcurrentHashMap<>())
+      .merge(update.getId(), update, (current, offered) -> offered.getSequence() >= current.getSequence() ? offered : current);
+  }
+
+  /**
+   * Takes the pending update of a job, e.g. to write it together with a status change.
+   *
+   * @param tenant tenant of the job
+   * @param id job id
+   * @return the pending update, empty if there is none
+   */
+  public Optional<JobExecutionUpdate> take(String tenant, UUID id) {
+    var updates = pending.get(tenant);
+    return updates == null ? Optional.empty() : Optional.ofNullable(updates.remove(id));
+  }
+
+  /**
+   * Takes all pending updates of a tenant.
+   *
+   * @param tenant tenant of the jobs
+   * @return the pending updates by job id
+   */
+  public Map<UUID, JobExecutionUpdate> drain(String tenant) {
+    Map<UUID, JobExecutionUpdate> drained = new HashMap<>();
+    // removed one by one, an update offered meanwhile is either drained or stays pending
+    pending.getOrDefault(tenant, Map.of()).keySet()
+      .forEach(id -> take(tenant, id).ifPresent(update -> drained.put(id, update)));
+    return drained;
+  }
+
+  public Iterable<String> getTenants() {
+    return pending.keySet();
+  }
+
+  public int getPendingCount() {
+    return pending.values().stream().mapToInt(Map::size).sum();
+  }
+}
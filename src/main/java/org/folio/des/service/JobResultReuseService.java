@@ -0,0 +1,201 @@
+package org.folio.des.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import lombok.extern.log4j.Log4j2;
+import org.folio.de.entity.Job;
+import org.folio.des.domain.dto.ExportType;
+import org.folio.des.domain.dto.JobStatus;
+import org.folio.des.repository.JobDataExportRepository;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+/**
+ * Finds a recent successful job with the same parameters as a new one, so the files of that job can be reused instead
+ * of exporting the same data again. The parameters are compared by a hash of their canonical JSON, which is stored
+ * with the job. In single-flight mode a new job also follows a scheduled or running job with the same parameters
+ * instead of being exported, and gets its result when it completes.
+ */
+@Service
+@Log4j2
+public class JobResultReuseService {
+
+  /** Job types whose result only depends on their parameters and the data at the time of the export. */
+  private static final Set<ExportType> REUSABLE_TYPES = EnumSet.of(ExportType.BULK_EDIT_QUERY,
+    ExportType.CIRCULATION_LOG, ExportType.E_HOLDINGS);
+
+  private final JobDataExportRepository repository;
+  private final ObjectMapper canonicalMapper;
+  private final Duration freshnessWindow;
+  private final boolean singleFlight;
+  private final Duration maxLeaderAge;
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter applied;
+  private final Counter followed;
+
+  public JobResultReuseService(JobDataExportRepository repository, ObjectMapper objectMapper,
+      @Value("${application.job-result-reuse.freshness-window:10m}") Duration freshnessWindow,
+      @Value("${application.job-single-flight.enabled:false}") boolean singleFlight,
+      @Value("${application.job-single-flight.max-leader-age:1h}") Duration maxLeaderAge,
+      MeterRegistry meterRegistry) {
+    this.repository = repository;
+    // properties and map entries sorted, so equal parameters always serialize to the same JSON
+    var mapper = objectMapper.copy();
+    this.canonicalMapper = mapper.setConfig(mapper.getSerializationConfig()
+      .with(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+      .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS));
+    this.freshnessWindow = freshnessWindow;
+    this.singleFlight = singleFlight;
+    this.maxLeaderAge = maxLeaderAge;
+    this.hits = Counter.builder("job.results.reuse.hits")
+      .description("New jobs for which a successful job with the same parameters was found")
+      .register(meterRegistry);
+    this.misses = Counter.builder("job.results.reuse.misses")
+      .description("New jobs for which no successful job with the same parameters was found")
+      .register(meterRegistry);
+    this.applied = Counter.builder("job.results.reuse.applied")
+      .description("New jobs completed with the files of a successful job instead of being exported")
+      .register(meterRegistry);
+    this.followed = Counter.builder("job.single-flight.followers")
+      .description("New jobs following an in-flight job with the same parameters instead of being exported")
+      .register(meterRegistry);
+  }
+
+  /**
+   * Computes the hash of the parameters deciding the result of the job.
+   *
+   * @param job the job
+   * @return SHA-256 of the canonical parameters, {@code null} if results of the job type are not reused
+   */
+  public String hashParameters(Job job) {
+    if (!REUSABLE_TYPES.contains(job.getType())) {
+      return null;
+    }
+    Map<String, Object> parameters = new LinkedHashMap<>();
+    parameters.put("type", job.getType());
+    parameters.put("entityType", job.getEntityType());
+    parameters.put("identifierType", job.getIdentifierType());
+    parameters.put("exportTypeSpecificParameters", job.getExportTypeSpecificParameters());
+    try {
+      return hash(parameters);
+    } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+      log.warn("Can't hash the parameters of job {}: {}", job.getId(), e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Computes the hash of a submitted job, stored with its idempotency key to recognize a retry of the same request.
+   *
+   * @param jobDto the submitted job
+   * @return SHA-256 of the canonical job
+   */
+  public String hashRequest(org.folio.des.domain.dto.Job jobDto) {
+    try {
+      return hash(jobDto);
+    } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Can't hash the submitted job: " + e.getMessage(), e);
+    }
+  }
+
+  private String hash(Object value) throws JsonProcessingException, NoSuchAlgorithmException {
+    var digest = MessageDigest.getInstance("SHA-256").digest(canonicalMapper.writeValueAsBytes(value));
+    return HexFormat.of().formatHex(digest);
+  }
+
+  /**
+   * Finds the latest job with the same parameters hash that succeeded within the freshness window.
+   *
+   * @param job the new job, with its parameters hash
+   * @return the job whose result can be reused, empty if there is none
+   */
+  public Optional<Job> findReusableResult(Job job) {
+    if (job.getParametersHash() == null) {
+      return Optional.empty();
+    }
+    var since = new Date(System.currentTimeMillis() - freshnessWindow.toMillis());
+    var result = repository.findSuccessfulByParametersHash(job.getParametersHash(), since, PageRequest.ofSize(1))
+      .stream()
+      .filter(candidate -> candidate.getFileNames() != null && !candidate.getFileNames().isEmpty())
+      .findFirst();
+    (result.isPresent() ? hits : misses).increment();
+    return result;
+  }
+
+  /**
+   * Completes the new job with the files of the job whose result is reused, no command has to be sent for it.
+   *
+   * @param job the new job
+   * @param result the successful job with the same parameters
+   */
+  public void applyResult(Job job, Job result) {
+    log.info("Reusing the files of job {} with the same parameters.", result.getId());
+    job.setFiles(result.getFiles() == null ? null : new ArrayList<>(result.getFiles()));
+    job.setFileNames(new ArrayList<>(result.getFileNames()));
+    job.setProgress(result.getProgress());
+    job.setStatus(JobStatus.SUCCESSFUL);
+    job.setBatchStatus(BatchStatus.COMPLETED);
+    job.setExitStatus(ExitStatus.COMPLETED);
+    // the times of the export, so the freshness of a reused result is not extended
+    job.setStartTime(result.getStartTime());
+    job.setEndTime(result.getEndTime());
+    job.setDispatchStatus(null);
+    applied.increment();
+  }
+
+  /**
+   * Finds the in-flight job with the same parameters hash the new job can follow. Must be called in the transaction
+   * inserting the new job: the submissions with the same parameters are serialized until it ends, so of two concurrent
+   * identical submissions only the first one is exported.
+   *
+   * @param job the new job, with its parameters hash
+   * @return the latest scheduled or running job with the same parameters, empty if there is none or single-flight
+   * mode is off
+   */
+  public Optional<Job> findInFlightLeader(Job job) {
+    if (!singleFlight || job.getParametersHash() == null) {
+      return Optional.empty();
+    }
+    repository.lockParametersHash(job.getParametersHash());
+    // a job stuck in progress, e.g. after a worker crash, is not followed for ever
+    var since = new Date(System.currentTimeMillis() - maxLeaderAge.toMillis());
+    return repository.findInFlightByParametersHash(job.getParametersHash(), since, PageRequest.ofSize(1))
+      .stream()
+      .findFirst();
+  }
+
+  /**
+   * Makes the new job follow the leader, no command has to be sent for it.
+   *
+   * @param job the new job
+   * @param leader the in-flight job with the same parameters
+   */
+  public void follow(Job job, Job leader) {
+    log.info("Following in-flight job {} with the same parameters.", leader.getId());
+    job.setLeaderJobId(leader.getId());
+    job.setStatus(leader.getStatus());
+    job.setBatchStatus(leader.getBatchStatus());
+    job.setStartTime(leader.getStartTime());
+    job.setDispatchStatus(null);
+    followed.increment();
+  }
+}
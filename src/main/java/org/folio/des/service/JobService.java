@@ -1,10 +1,19 @@
 package org.folio.des.service;
 
+import org.folio.des.domain.JobSubmission;
+import org.folio.des.domain.ResultPage;
+import org.folio.des.domain.TotalRecordsMode;
 import org.folio.des.domain.dto.Job;
+import org.folio.des.domain.dto.JobBatchResult;
+import org.folio.des.domain.dto.JobChanges;
 import org.folio.des.domain.dto.JobCollection;
+import org.folio.des.domain.dto.JobStatusSummaryCollection;
 
 import java.io.InputStream;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public interface JobService {
 
@@ -26,6 +35,59 @@ public interface JobService {
    */
   JobCollection get(Integer offset, Integer limit, String query);
 
+  /**
+   * Gets job collection by search query, only the given job fields are read and returned.
+   *
+   * @param offset the offset
+   * @param limit the limit
+   * @param query the query
+   * @param fields the job fields to return, all fields if empty
+   * @param totalRecordsMode how to compute the total records
+   * @return job collection and whether more jobs follow if the total records are not counted
+   */
+  ResultPage<JobCollection> get(Integer offset, Integer limit, String query, List<String> fields,
+      TotalRecordsMode totalRecordsMode);
+
+  /**
+   * Gets job collection by search query using keyset pagination.
+   *
+   * @param cursor the cursor of the previous page, blank for the first page
+   * @param limit the limit
+   * @param query the query
+   * @param fields the job fields to return, all fields if empty
+   * @param totalRecordsMode how to compute the total records
+   * @return job collection and the cursor of the next page
+   */
+  ResultPage<JobCollection> getAfter(String cursor, Integer limit, String query, List<String> fields,
+      TotalRecordsMode totalRecordsMode);
+
+  /**
+   * Gets the jobs updated and the ids of the jobs deleted after the watermark, ordered by updated date and id.
+   *
+   * @param since the watermark of the previous call, all jobs if blank
+   * @param cursor the cursor of the previous page after the same watermark, blank for the first page
+   * @param limit the limit
+   * @return job changes with the next watermark and the cursor of the next page
+   */
+  ResultPage<JobChanges> getChanges(String since, String cursor, Integer limit);
+
+  /**
+   * Gets the status, progress and file names of the given jobs with a single query.
+   *
+   * @param ids the job ids
+   * @return status summaries of the existing jobs, in the order of the ids
+   */
+  JobStatusSummaryCollection getStatuses(List<UUID> ids);
+
+  /**
+   * Streams all jobs matching the search query without loading them into memory at once.
+   *
+   * @param query the query, all jobs if blank
+   * @param consumer the consumer of the jobs
+   * @return the number of streamed jobs
+   */
+  long streamJobs(String query, Consumer<Job> consumer);
+
   /**
    * Inserts or updates job, if @withJobCommandSend enabled - send job to kafka
    *
@@ -35,6 +97,28 @@ public interface JobService {
    */
   Job upsertAndSendToKafka(Job job, boolean withJobCommandSend);
 
+  /**
+   * Inserts or updates a job submitted by a client and sends it to kafka, unless a job was already submitted with the
+   * idempotency key, then that job is returned and nothing is written or sent. A new job whose parameters equal those
+   * of a recent successful job is offered that job's files, with {@code reuseResult} it takes them and is not sent.
+   *
+   * @param job the job to upsert
+   * @param idempotencyKey key of the submission, ignored if blank
+   * @param reuseResult whether to take the files of a recent successful job with the same parameters
+   * @return updated job, or the job submitted first with the key, and the reusable result
+   */
+  JobSubmission submitJob(Job job, String idempotencyKey, boolean reuseResult);
+
+  /**
+   * Creates several jobs and sends their start commands to kafka together. Each job is validated on its own, an
+   * invalid one is rejected without failing the others.
+   *
+   * @param jobs the new jobs
+   * @param isMissingRequiredParameters tells the jobs lacking the parameters required by their type
+   * @return result of each job, in the order of the jobs
+   */
+  JobBatchResult submitJobs(List<Job> jobs, Predicate<Job> isMissingRequiredParameters);
+
   /**
    * Deletes old jobs.
    */
@@ -1,21 +1,40 @@
 package org.folio.des.service;
 
-import java.util.Date;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.apache.commons.collections4.CollectionUtils;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.folio.des.config.kafka.KafkaRecordInterceptor;
 import org.folio.des.config.kafka.KafkaService;
 import org.folio.des.domain.dto.JobStatus;
 import org.folio.de.entity.Job;
-import org.folio.des.repository.JobDataExportRepository;
+import org.folio.des.repository.JobExecutionUpdateRepository;
+import org.folio.des.repository.JobExecutionUpdateRepository.JobExecutionUpdate;
+import org.folio.des.repository.JobExecutionUpdateRepository.JobExecutionUpdateResult;
 import org.folio.des.scheduling.ExportScheduler;
+import org.folio.spring.DefaultFolioExecutionContext;
+import org.folio.spring.FolioModuleMetadata;
+import org.folio.spring.integration.XOkapiHeaders;
+import org.folio.spring.scope.FolioExecutionScopeExecutionContextManager;
 import org.springframework.batch.core.BatchStatus;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import static java.util.Objects.nonNull;
 
@@ -37,93 +56,218 @@ public class JobUpdatesService {
     JOB_STATUSES.put(BatchStatus.UNKNOWN, null);
   }
 
-  private final JobDataExportRepository repository;
+  private static final String STALE_UPDATES_METRIC = "job.updates.stale";
+
+  private final JobExecutionUpdateRepository updateRepository;
   private final ExportScheduler exportScheduler;
+  private final JobEventsService jobEventsService;
+  private final JobProgressDebouncer progressDebouncer;
+  private final FolioModuleMetadata folioModuleMetadata;
+  private final TransactionTemplate transactionTemplate;
+  private final MeterRegistry meterRegistry;
 
   @Transactional
   @KafkaListener(
       id = KafkaService.EVENT_LISTENER_ID,
       containerFactory = "kafkaListenerContainerFactory",
       topicPattern = "${application.kafka.topic-pattern}",
-      groupId = "${application.kafka.group-id}")
-  public void receiveJobExecutionUpdate(Job jobExecutionUpdate) {
-    log.info("Received {}.", jobExecutionUpdate);
+      groupId = "${application.kafka.group-id}",
+      autoStartup = "#{!${application.kafka.batch-listener:true}}")
+  public void receiveJobExecutionUpdate(ConsumerRecord<String, Job> consumerRecord) {
+    log.info("Received {}.", consumerRecord.value());
+    applyJobExecutionUpdates(getTenant(consumerRecord), List.of(consumerRecord));
+  }
+
+  /**
+   * Receives the job execution updates of a poll batch. The records are grouped by tenant, the updates of each tenant
+   * are applied in one transaction. The offsets of the batch are committed after all transactions, a failure
+   * redelivers the whole batch.
+   *
+   * @param records the records of the poll batch
+   */
+  @KafkaListener(
+      id = KafkaService.EVENT_BATCH_LISTENER_ID,
+      containerFactory = "batchKafkaListenerContainerFactory",
+      topicPattern = "${application.kafka.topic-pattern}",
+      groupId = "${application.kafka.group-id}",
+      autoStartup = "${application.kafka.batch-listener:true}")
+  public void receiveJobExecutionUpdates(List<ConsumerRecord<String, Job>> records) {
+    log.info("Received {} job updates.", records.size());
+    Map<String, List<ConsumerRecord<String, Job>>> recordsByTenant = records.stream()
+      .collect(Collectors.groupingBy(JobUpdatesService::getTenant, LinkedHashMap::new, Collectors.toList()));
+    recordsByTenant.forEach((tenant, tenantRecords) ->
+      inTenantTransaction(KafkaRecordInterceptor.toOkapiHeaders(tenantRecords.get(0).headers()),
+        status -> applyJobExecutionUpdates(tenant, tenantRecords)));
+  }
+
+  /**
+   * Writes the pending progress of the jobs, at most one progress write per job and flush interval.
+   */
+  @Scheduled(fixedDelayString = "${application.job-updates.progress-flush-interval:1000}")
+  public void flushProgress() {
+    for (String tenant : progressDebouncer.getTenants()) {
+      var updates = progressDebouncer.drain(tenant);
+      if (updates.isEmpty()) {
+        continue;
+      }
+      try {
+        inTenantTransaction(Map.<String, Collection<String>>of(XOkapiHeaders.TENANT, List.of(tenant)),
+          status -> updates.values().forEach(this::applyJobExecutionUpdate));
+      } catch (Exception e) {
+        log.error("Can't flush progress of {} jobs of tenant {}, retrying.", updates.size(), tenant, e);
+        updates.values().forEach(update -> progressDebouncer.offer(tenant, update));
+      }
+    }
+  }
+
+  /**
+   * Drains the pending progress on shutdown, after the listeners have stopped.
+   */
+  @PreDestroy
+  public void drainProgress() {
+    log.info("Flushing progress of {} jobs.", progressDebouncer.getPendingCount());
+    flushProgress();
+  }
+
+  private void inTenantTransaction(Map<String, Collection<String>> okapiHeaders, Consumer<TransactionStatus> action) {
+    FolioExecutionScopeExecutionContextManager.beginFolioExecutionContext(
+      new DefaultFolioExecutionContext(folioModuleMetadata, okapiHeaders));
+    try {
+      transactionTemplate.executeWithoutResult(action);
+    } finally {
+      FolioExecutionScopeExecutionContextManager.endFolioExecutionContext();
+    }
+  }
 
-    Optional<Job> jobOptional = repository.findById(jobExecutionUpdate.getId());
-    if (jobOptional.isEmpty()) {
-      log.error("Update for unknown job {}.", jobExecutionUpdate.getId());
-      return;
+  /**
+   * Merges the updates of each job in the order of their record timestamps and applies them with one conditional
+   * statement per job, so the fields of a later record win over those of an earlier record received after it. An
+   * update older than the last one applied to its job is discarded.
+   * Progress-only updates are debounced, any other update is applied at once together with the pending progress.
+   */
+  private void applyJobExecutionUpdates(String tenant, List<ConsumerRecord<String, Job>> records) {
+    Map<UUID, JobExecutionUpdate> updates = new LinkedHashMap<>();
+    // a stable sort, records with the same timestamp stay in the order received
+    List<ConsumerRecord<String, Job>> ordered = records.stream()
+      .sorted(Comparator.comparingLong(ConsumerRecord::timestamp))
+      .toList();
+    for (ConsumerRecord<String, Job> consumerRecord : ordered) {
+      var jobExecutionUpdate = consumerRecord.value();
+      if (jobExecutionUpdate == null || jobExecutionUpdate.getId() == null) {
+        log.error("Update without job id {}.", jobExecutionUpdate);
+        continue;
+      }
+      var update = updates.computeIfAbsent(jobExecutionUpdate.getId(), id -> {
+        var jobUpdate = new JobExecutionUpdate();
+        jobUpdate.setId(id);
+        return jobUpdate;
+      });
+      mergeUpdate(jobExecutionUpdate, consumerRecord.timestamp(), update);
+    }
+
+    for (JobExecutionUpdate update : updates.values()) {
+      if (isProgressOnly(update)) {
+        progressDebouncer.offer(tenant, update);
+        continue;
+      }
+      // status transitions, e.g. to SUCCESSFUL or FAILED, flush the pending progress of the job
+      progressDebouncer.take(tenant, update.getId()).ifPresent(pending -> {
+        if (pending.getSequence() > update.getSequence()) {
+          progressDebouncer.offer(tenant, pending);
+        } else if (update.getProgress() == null) {
+          update.setProgress(pending.getProgress());
+        }
+      });
+      applyJobExecutionUpdate(update);
+    }
+  }
+
+  private void applyJobExecutionUpdate(JobExecutionUpdate update) {
+    var result = updateRepository.apply(update);
+    if (result.isEmpty()) {
+      log.error("Update for unknown job {}.", update.getId());
+    } else if (result.get().isStale()) {
+      log.warn("Discarded stale update of job {}.", update.getId());
+      meterRegistry.counter(STALE_UPDATES_METRIC).increment();
+    } else if (result.get().isApplied()) {
+      log.info("Updated job {}.", update.getId());
+      onJobUpdated(result.get());
     }
-    var job = jobOptional.get();
+  }
+
+  private static boolean isProgressOnly(JobExecutionUpdate update) {
+    var progressOnly = new JobExecutionUpdate();
+    progressOnly.setId(update.getId());
+    progressOnly.setSequence(update.getSequence());
+    progressOnly.setProgress(update.getProgress());
+    return update.getProgress() != null && progressOnly.equals(update);
+  }
 
-    if (updateJobPropsIfChanged(jobExecutionUpdate, job)) {
-      job.setUpdatedDate(new Date());
-      log.info("Updating {}.", job);
-      job = repository.save(job);
-      log.info("Updated {}.", job);
+  private void onJobUpdated(JobExecutionUpdateResult result) {
+    // Execute next job only after the previous one is completed.
+    if (result.getBatchStatus() != result.getPreviousBatchStatus()
+        && (result.getStatus() == JobStatus.SUCCESSFUL || result.getStatus() == JobStatus.FAILED)) {
+      exportScheduler.nextJob();
+      // the jobs submitted with the same parameters while this one was in flight
+      updateRepository.completeFollowers(result.getId()).forEach(jobEventsService::publish);
     }
+    var job = new Job();
+    job.setId(result.getId());
+    job.setStatus(result.getStatus());
+    job.setProgress(result.getProgress());
+    job.setFileNames(result.getFileNames());
+    // delivered to the subscribers when this transaction commits
+    jobEventsService.publish(job);
+  }
+
+  private static String getTenant(ConsumerRecord<String, Job> consumerRecord) {
+    Header header = consumerRecord.headers().lastHeader(XOkapiHeaders.TENANT);
+    return header == null ? "" : new String(header.value(), StandardCharsets.UTF_8);
   }
 
-  private boolean updateJobPropsIfChanged(Job jobExecutionUpdate, Job job) {
-    var result = false;
-    if (jobExecutionUpdate.getDescription() != null && !jobExecutionUpdate.getDescription().equals(job.getDescription())) {
-      job.setDescription(jobExecutionUpdate.getDescription());
-      result = true;
+  private void mergeUpdate(Job jobExecutionUpdate, long timestamp, JobExecutionUpdate update) {
+    update.setSequence(Math.max(update.getSequence(), timestamp));
+    if (jobExecutionUpdate.getDescription() != null) {
+      update.setDescription(jobExecutionUpdate.getDescription());
     }
-    if (jobExecutionUpdate.getFiles() != null && (job.getFiles() == null || !CollectionUtils.isEqualCollection(
-        jobExecutionUpdate.getFiles(), job.getFiles()))) {
-      job.setFiles(jobExecutionUpdate.getFiles());
-      result = true;
+    if (jobExecutionUpdate.getFiles() != null) {
+      update.setFiles(jobExecutionUpdate.getFiles());
     }
-    if (jobExecutionUpdate.getFileNames() != null && (job.getFileNames() == null || !CollectionUtils.isEqualCollection(
-      jobExecutionUpdate.getFileNames(), job.getFileNames()))) {
-      job.setFileNames(jobExecutionUpdate.getFileNames());
-      result = true;
+    if (jobExecutionUpdate.getFileNames() != null) {
+      update.setFileNames(jobExecutionUpdate.getFileNames());
     }
-    if (jobExecutionUpdate.getStartTime() != null && !jobExecutionUpdate.getStartTime().equals(job.getStartTime())) {
-      job.setStartTime(jobExecutionUpdate.getStartTime());
-      result = true;
+    if (jobExecutionUpdate.getStartTime() != null) {
+      update.setStartTime(jobExecutionUpdate.getStartTime());
     }
-    if (jobExecutionUpdate.getEndTime() != null && !jobExecutionUpdate.getEndTime().equals(job.getEndTime())) {
-      job.setEndTime(jobExecutionUpdate.getEndTime());
-      result = true;
+    if (jobExecutionUpdate.getEndTime() != null) {
+      update.setEndTime(jobExecutionUpdate.getEndTime());
     }
     if (jobExecutionUpdate.getErrorDetails() == null && BatchStatus.COMPLETED.equals(jobExecutionUpdate.getBatchStatus())) {
-      job.setErrorDetails(null);
-      result = true;
+      update.setErrorDetails(null);
+      update.setClearErrorDetails(true);
     }
-    if (jobExecutionUpdate.getErrorDetails() != null && !jobExecutionUpdate.getErrorDetails().equals(job.getErrorDetails())) {
-      job.setErrorDetails(jobExecutionUpdate.getErrorDetails());
-      result = true;
+    if (jobExecutionUpdate.getErrorDetails() != null) {
+      update.setErrorDetails(jobExecutionUpdate.getErrorDetails());
+      update.setClearErrorDetails(false);
     }
     if (jobExecutionUpdate.getErrorDetails() == null &&
             jobExecutionUpdate.getExportTypeSpecificParameters() != null &&
             jobExecutionUpdate.getExportTypeSpecificParameters().getVendorEdiOrdersExportConfig() != null) {
-      job.getExportTypeSpecificParameters().setVendorEdiOrdersExportConfig(jobExecutionUpdate.getExportTypeSpecificParameters().getVendorEdiOrdersExportConfig());
-      result = true;
+      update.setVendorEdiOrdersExportConfig(jobExecutionUpdate.getExportTypeSpecificParameters().getVendorEdiOrdersExportConfig());
     }
-    if (jobExecutionUpdate.getBatchStatus() != null && jobExecutionUpdate.getBatchStatus() != job.getBatchStatus()) {
-      job.setBatchStatus(jobExecutionUpdate.getBatchStatus());
-      result = true;
-
+    if (jobExecutionUpdate.getBatchStatus() != null) {
+      update.setBatchStatus(jobExecutionUpdate.getBatchStatus());
       var jobStatus = JOB_STATUSES.get(jobExecutionUpdate.getBatchStatus());
       if (jobStatus != null) {
-        job.setStatus(jobStatus);
-
-        // Execute next job only after the previous one is completed.
-        if (jobStatus == JobStatus.SUCCESSFUL || jobStatus == JobStatus.FAILED) {
-          exportScheduler.nextJob();
-        }
+        update.setStatus(jobStatus);
       }
     }
     if (nonNull(jobExecutionUpdate.getProgress())) {
-      job.setProgress(jobExecutionUpdate.getProgress());
+      update.setProgress(jobExecutionUpdate.getProgress());
     }
-    if (jobExecutionUpdate.getExitStatus() != null && !jobExecutionUpdate.getExitStatus().equals(job.getExitStatus())) {
-      job.setExitStatus(jobExecutionUpdate.getExitStatus());
-      result = true;
+    if (jobExecutionUpdate.getExitStatus() != null) {
+      update.setExitStatus(jobExecutionUpdate.getExitStatus());
     }
-    return result;
   }
 
 }
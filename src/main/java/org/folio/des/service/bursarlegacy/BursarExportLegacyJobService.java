@@ -5,6 +5,8 @@ import lombok.extern.log4j.Log4j2;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.folio.de.entity.bursarlegacy.LegacyJob;
+import org.folio.des.domain.ResultPage;
+import org.folio.des.domain.TotalRecordsMode;
 import org.folio.des.domain.dto.ExportType;
 import org.folio.des.domain.dto.LegacyJobCollection;
 import org.folio.des.domain.dto.Metadata;
@@ -26,24 +28,54 @@ public class BursarExportLegacyJobService {
 
   @Transactional(readOnly = true)
   public LegacyJobCollection get(Integer offset, Integer limit, String query) {
+    return get(offset, limit, query, TotalRecordsMode.EXACT).getContent();
+  }
+
+  @Transactional(readOnly = true)
+  public ResultPage<LegacyJobCollection> get(
+    Integer offset,
+    Integer limit,
+    String query,
+    TotalRecordsMode totalRecordsMode
+  ) {
     var result = new LegacyJobCollection();
-    if (StringUtils.isBlank(query)) {
+    if (
+      StringUtils.isBlank(query) && totalRecordsMode == TotalRecordsMode.EXACT
+    ) {
       Page<LegacyJob> page = repository.findAll(
         new OffsetRequest(offset, limit)
       );
       result.setJobRecords(page.map(this::entityToDto).getContent());
       result.setTotalRecords((int) page.getTotalElements());
-    } else {
-      result.setJobRecords(
-        cqlService
-          .getByCQL(LegacyJob.class, query, offset, limit)
-          .stream()
-          .map(this::entityToDto)
-          .toList()
-      );
-      result.setTotalRecords(cqlService.countByCQL(LegacyJob.class, query));
+      return new ResultPage<>(result, null, null);
     }
-    return result;
+    // one more job tells whether another page follows without counting
+    var fetchLimit = totalRecordsMode == TotalRecordsMode.NONE &&
+      limit < Integer.MAX_VALUE
+      ? limit + 1
+      : limit;
+    var jobs = cqlService.getByCQL(LegacyJob.class, query, offset, fetchLimit);
+    Boolean hasMore = null;
+    if (totalRecordsMode == TotalRecordsMode.NONE) {
+      hasMore = jobs.size() > limit;
+      jobs = hasMore ? jobs.subList(0, limit) : jobs;
+    }
+    result.setJobRecords(jobs.stream().map(this::entityToDto).toList());
+    result.setTotalRecords(
+      cqlService.countByCQL(LegacyJob.class, query, totalRecordsMode)
+    );
+    return new ResultPage<>(result, null, hasMore);
+  }
+
+  @Transactional(readOnly = true)
+  public ResultPage<LegacyJobCollection> getAfter(String cursor, Integer limit, String query) {
+    var page = cqlService.getByCQLAfter(LegacyJob.class, query, cursor, limit);
+    var result = new LegacyJobCollection();
+    // not counted, the cursor tells whether another page follows
+    result.setJobRecords(
+      page.getContent().stream().map(this::entityToDto).toList()
+    );
+    return new ResultPage<>(result, page.getNextCursor());
   }
 
   private org.folio.des.domain.dto.LegacyJob entityToDto(LegacyJob entity) {
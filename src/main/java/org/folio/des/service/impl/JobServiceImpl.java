@@ -7,16 +7,31 @@ import static org.folio.des.domain.dto.ExportType.BULK_EDIT_UPDATE;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
@@ -26,19 +41,36 @@ import org.apache.commons.lang3.StringUtils;
 import org.folio.des.client.ConfigurationClient;
 import org.folio.des.client.ExportWorkerClient;
 import org.folio.des.config.FolioExecutionContextHelper;
+import org.folio.des.domain.JobSubmission;
+import org.folio.des.domain.ResultPage;
+import org.folio.des.domain.TotalRecordsMode;
 import org.folio.des.domain.dto.PresignedUrl;
 import org.folio.des.domain.dto.ExportType;
 import org.folio.des.domain.dto.ExportTypeSpecificParameters;
+import org.folio.des.domain.dto.JobBatchItemResult;
+import org.folio.des.domain.dto.JobBatchItemStatus;
+import org.folio.des.domain.dto.JobBatchResult;
+import org.folio.des.domain.dto.JobChanges;
 import org.folio.des.domain.dto.JobCollection;
+import org.folio.des.domain.dto.JobDispatchStatus;
 import org.folio.des.domain.dto.JobStatus;
+import org.folio.des.domain.dto.JobStatusSummary;
+import org.folio.des.domain.dto.JobStatusSummaryCollection;
 import org.folio.des.domain.dto.Metadata;
 import org.folio.de.entity.Job;
+import org.folio.de.entity.JobCommand;
+import org.folio.de.entity.JobTombstone;
 import org.folio.des.domain.dto.ScheduleParameters;
 import org.folio.des.domain.dto.VendorEdiOrdersExportConfig;
 import org.folio.des.exceptions.FileDownloadException;
+import org.folio.des.exceptions.IdempotencyKeyReuseException;
 import org.folio.des.repository.CQLService;
 import org.folio.des.repository.JobDataExportRepository;
+import org.folio.des.repository.JobIdempotencyKeyRepository;
+import org.folio.des.repository.JobTombstoneRepository;
+import org.folio.des.repository.criteria.CqlCursor;
 import org.folio.des.service.JobExecutionService;
+import org.folio.des.service.JobResultReuseService;
 import org.folio.des.service.JobService;
 import org.folio.des.service.config.BulkEditConfigService;
 import org.folio.spring.FolioExecutionContext;
@@ -46,10 +78,12 @@ import org.folio.spring.data.OffsetRequest;
 import org.folio.spring.exception.NotFoundException;
 import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.ExitStatus;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @EnableScheduling
@@ -58,6 +92,12 @@ import org.springframework.transaction.annotation.Transactional;
 public class JobServiceImpl implements JobService {
   private static final int DEFAULT_JOB_EXPIRATION_PERIOD = 7;
   public static final int CONNECTION_TIMEOUT = 5000;
+  private static final int STREAM_FETCH_SIZE = 500;
+  /** Most jobs submitted with one batch request. */
+  private static final int MAX_BATCH_SIZE = 1000;
+  /** Days deleted jobs are reported to clients syncing job changes. */
+  private static final int TOMBSTONE_EXPIRATION_PERIOD = 30;
+  private static final String CHANGES_QUERY = "updatedDate>\"%s\" sortby updatedDate/sort.ascending";
 
   private static final Map<ExportType, String> OUTPUT_FORMATS = new EnumMap<>(ExportType.class);
 
@@ -67,16 +107,58 @@ public class JobServiceImpl implements JobService {
     OUTPUT_FORMATS.put(ExportType.EDIFACT_ORDERS_EXPORT, "EDIFACT orders export (EDI)");
   }
 
+  private static final String METADATA_FIELD = "metadata";
+  private static final String TYPE_FIELD = "type";
+
+  /** Entity attributes read for each job DTO field of a sparse fieldset. */
+  private static final Map<String, List<String>> FIELD_ATTRIBUTES = Map.ofEntries(
+    Map.entry("id", List.of("id")),
+    Map.entry("name", List.of("name")),
+    Map.entry("description", List.of("description")),
+    Map.entry("source", List.of("source")),
+    Map.entry("isSystemSource", List.of("isSystemSource")),
+    Map.entry(TYPE_FIELD, List.of(TYPE_FIELD)),
+    Map.entry("exportTypeSpecificParameters", List.of("exportTypeSpecificParameters")),
+    Map.entry("status", List.of("status")),
+    // files are hidden for EDIFACT jobs, see entityToDto
+    Map.entry("files", List.of("files", TYPE_FIELD)),
+    Map.entry("fileNames", List.of("fileNames")),
+    Map.entry("startTime", List.of("startTime")),
+    Map.entry("endTime", List.of("endTime")),
+    Map.entry("identifierType", List.of("identifierType")),
+    Map.entry("entityType", List.of("entityType")),
+    Map.entry("progress", List.of("progress")),
+    Map.entry(METADATA_FIELD, List.of("createdDate", "createdByUserId", "createdByUsername", "updatedDate",
+      "updatedByUserId", "updatedByUsername")),
+    Map.entry("outputFormat", List.of("outputFormat")),
+    Map.entry("errorDetails", List.of("errorDetails")));
+
+  /** Entity attributes read for a job status summary. */
+  private static final List<String> STATUS_SUMMARY_ATTRIBUTES = List.of("id", "status", "progress", "fileNames",
+    "dispatchStatus");
+
   private final ExportWorkerClient exportWorkerClient;
   private final JobExecutionService jobExecutionService;
   private final JobDataExportRepository repository;
+  private final JobTombstoneRepository tombstoneRepository;
+  private final JobIdempotencyKeyRepository idempotencyKeyRepository;
   private final FolioExecutionContext context;
   private final CQLService cqlService;
   private final BulkEditConfigService bulkEditConfigService;
   private final ConfigurationClient client;
+  private final TransactionTemplate transactionTemplate;
+  private final JobResultReuseService resultReuseService;
 
   private Set<ExportType> bulkEditTypes = Set.of(BULK_EDIT_IDENTIFIERS, BULK_EDIT_QUERY, BULK_EDIT_UPDATE);
 
+  /** How long a submission can be retried with the same idempotency key. */
+  @Value("${application.job-idempotency-key-ttl:24h}")
+  private Duration idempotencyKeyTtl = Duration.ofHours(24);
+
+  /** How far behind the watermark changes are read again, a change committed later than its date is not lost. */
+  @Value("${application.job-changes-overlap:1m}")
+  private Duration changesOverlap = Duration.ofMinutes(1);
+
   @Transactional(readOnly = true)
   @Override
   public org.folio.des.domain.dto.Job get(UUID id) {
@@ -105,9 +187,330 @@ public class JobServiceImpl implements JobService {
     return result;
   }
 
-  @Transactional
+  @Transactional(readOnly = true)
+  @Override
+  public ResultPage<JobCollection> get(Integer offset, Integer limit, String query, List<String> fields,
+      TotalRecordsMode totalRecordsMode) {
+    if (CollectionUtils.isEmpty(fields) && totalRecordsMode == TotalRecordsMode.EXACT) {
+      return new ResultPage<>(get(offset, limit, query), null, null);
+    }
+    // one more job tells whether another page follows without counting
+    var fetchLimit = totalRecordsMode == TotalRecordsMode.NONE && limit < Integer.MAX_VALUE ? limit + 1 : limit;
+    var jobs = cqlService.getByCQL(Job.class, query, offset, fetchLimit, toAttributes(fields));
+    Boolean hasMore = null;
+    if (totalRecordsMode == TotalRecordsMode.NONE) {
+      hasMore = jobs.size() > limit;
+      jobs = hasMore ? jobs.subList(0, limit) : jobs;
+    }
+    var result = new JobCollection();
+    result.setJobRecords(jobs.stream()
+        .map(job -> entityToDto(job, fields))
+        .toList());
+    result.setTotalRecords(cqlService.countByCQL(Job.class, query, totalRecordsMode));
+    return new ResultPage<>(result, null, hasMore);
+  }
+
+  @Transactional(readOnly = true)
+  @Override
+  public ResultPage<JobCollection> getAfter(String cursor, Integer limit, String query, List<String> fields,
+      TotalRecordsMode totalRecordsMode) {
+    var page = cqlService.getByCQLAfter(Job.class, query, cursor, limit, toAttributes(fields));
+    var result = new JobCollection();
+    result.setJobRecords(page.getContent().stream()
+        .map(job -> entityToDto(job, fields))
+        .toList());
+    // only the first page is counted, counting on every page would make walking all pages quadratic
+    result.setTotalRecords(cqlService.countByCQL(Job.class, query,
+        StringUtils.isBlank(cursor) ? totalRecordsMode : TotalRecordsMode.NONE));
+    return new ResultPage<>(result, page.getNextCursor());
+  }
+
+  @Transactional(readOnly = true)
+  @Override
+  public ResultPage<JobChanges> getChanges(String since, String cursor, Integer limit) {
+    var sinceInstant = parseWatermark(since);
+    var result = new JobChanges();
+    var watermark = sinceInstant;
+
+    // updatedDate and deletedDate are set before their transaction commits, so a change can become visible after
+    // a poll returned a later watermark. The overlap before the watermark is read again, its changes are repeated.
+    var readFrom = sinceInstant == null ? Instant.EPOCH : sinceInstant.minus(changesOverlap);
+
+    // deletions are read first, a job updated meanwhile is newer than the deletions
+    List<JobTombstone> tombstones = List.of();
+    if (sinceInstant != null && StringUtils.isBlank(cursor)) {
+      tombstones = tombstoneRepository.findByDeletedDateAfter(Date.from(readFrom));
+      result.setDeletedJobIds(tombstones.stream().map(JobTombstone::getId).distinct().toList());
+    }
+    var query = String.format(CHANGES_QUERY, LocalDateTime.ofInstant(readFrom, ZoneId.systemDefault()));
+    var page = cqlService.getByCQLAfter(Job.class, query, cursor, limit);
+    result.setJobRecords(page.getContent().stream()
+        .map(JobServiceImpl::entityToDto)
+        .toList());
+
+    if (StringUtils.isNotBlank(cursor)) {
+      watermark = latest(watermark, Instant.parse(CqlCursor.decode(cursor).get(0)));
+    }
+    if (!page.getContent().isEmpty()) {
+      watermark = latest(watermark, page.getContent().get(page.getContent().size() - 1).getUpdatedDate().toInstant());
+    }
+    var lastDeleted = tombstones.stream()
+        .map(tombstone -> tombstone.getDeletedDate().toInstant())
+        .max(Comparator.naturalOrder());
+    if (page.getNextCursor() == null && lastDeleted.isPresent()) {
+      // all changes until now were returned, the deletions must not be repeated
+      watermark = latest(watermark, lastDeleted.get());
+    }
+    result.setWatermark(watermark == null ? null : watermark.toString());
+    result.setResyncRequired(sinceInstant != null
+        && sinceInstant.isBefore(Instant.now().minus(TOMBSTONE_EXPIRATION_PERIOD, ChronoUnit.DAYS)));
+    return new ResultPage<>(result, page.getNextCursor());
+  }
+
+  private static Instant parseWatermark(String watermark) {
+    if (StringUtils.isBlank(watermark)) {
+      return null;
+    }
+    try {
+      return OffsetDateTime.parse(watermark).toInstant();
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException(String.format("Invalid watermark: %s", watermark), e);
+    }
+  }
+
+  private static Instant latest(Instant first, Instant second) {
+    return first == null || second.isAfter(first) ? second : first;
+  }
+
+  @Transactional(readOnly = true)
+  @Override
+  public JobStatusSummaryCollection getStatuses(List<UUID> ids) {
+    var result = new JobStatusSummaryCollection();
+    var distinctIds = new LinkedHashSet<>(ids);
+    if (distinctIds.isEmpty()) {
+      result.setJobStatuses(List.of());
+      result.setTotalRecords(0);
+      return result;
+    }
+    // an OR chain of ids is translated into a single id = any(?) predicate
+    var query = distinctIds.stream()
+        .map(UUID::toString)
+        .collect(Collectors.joining(" or ", "id==(", ")"));
+    Map<UUID, Job> jobs = cqlService.getByCQL(Job.class, query, 0, distinctIds.size(), STATUS_SUMMARY_ATTRIBUTES)
+        .stream()
+        .collect(Collectors.toMap(Job::getId, job -> job));
+    result.setJobStatuses(distinctIds.stream()
+        .filter(jobs::containsKey)
+        .map(id -> entityToStatusSummary(jobs.get(id)))
+        .toList());
+    result.setTotalRecords(result.getJobStatuses().size());
+    return result;
+  }
+
+  @Transactional(readOnly = true)
+  @Override
+  public long streamJobs(String query, Consumer<org.folio.des.domain.dto.Job> consumer) {
+    var count = cqlService.streamByCQL(Job.class, query, STREAM_FETCH_SIZE, job -> consumer.accept(entityToDto(job)));
+    log.info("Streamed {} jobs for query {}.", count, query);
+    return count;
+  }
+
+  public static JobStatusSummary entityToStatusSummary(Job entity) {
+    var result = new JobStatusSummary();
+    result.setId(entity.getId());
+    result.setStatus(entity.getStatus());
+    result.setProgress(entity.getProgress());
+    result.setFileNames(entity.getFileNames());
+    result.setDispatchStatus(entity.getDispatchStatus());
+    return result;
+  }
+
+  private static List<String> toAttributes(List<String> fields) {
+    if (CollectionUtils.isEmpty(fields)) {
+      return List.of();
+    }
+    Set<String> attributes = new LinkedHashSet<>();
+    attributes.add("id");
+    for (String field : fields) {
+      var fieldAttributes = FIELD_ATTRIBUTES.get(field);
+      if (fieldAttributes == null) {
+        throw new IllegalArgumentException(String.format("Unknown job field: %s", field));
+      }
+      attributes.addAll(fieldAttributes);
+    }
+    return List.copyOf(attributes);
+  }
+
+  private static org.folio.des.domain.dto.Job entityToDto(Job entity, List<String> fields) {
+    var result = entityToDto(entity);
+    if (CollectionUtils.isNotEmpty(fields)) {
+      if (!fields.contains(METADATA_FIELD)) {
+        result.setMetadata(null);
+      }
+      if (!fields.contains(TYPE_FIELD)) {
+        result.setType(null);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Saves the job and queues its start command. The configuration lookup runs before the transaction, which only
+   * covers the job number, the insert and the outbox record, so a slow remote module does not hold a connection.
+   */
   @Override
   public org.folio.des.domain.dto.Job upsertAndSendToKafka(org.folio.des.domain.dto.Job jobDto, boolean withJobCommandSend) {
+    return upsert(jobDto, withJobCommandSend, null, false, false).getJob();
+  }
+
+  /**
+   * Saves the job and queues its start command once per idempotency key. A retry is answered by a single indexed read
+   * before anything else, a retry racing with the first submission waits for its key in the transaction. A key can
+   * only be retried with the same job, a different job submitted with it is rejected. A new job
+   * looks for a recent successful job with the same parameters hash and, if asked to, takes its files instead of
+   * being sent. In single-flight mode a new job follows an in-flight job with the same parameters hash instead.
+   */
+  @Override
+  public JobSubmission submitJob(org.folio.des.domain.dto.Job jobDto, String idempotencyKey, boolean reuseResult) {
+    return upsert(jobDto, true, idempotencyKey, jobDto.getId() == null, reuseResult);
+  }
+
+  private JobSubmission upsert(org.folio.des.domain.dto.Job jobDto, boolean withJobCommandSend, String idempotencyKey,
+      boolean findReusableResult, boolean reuseResult) {
+    var idempotent = StringUtils.isNotBlank(idempotencyKey);
+    var requestHash = idempotent ? resultReuseService.hashRequest(jobDto) : null;
+    if (idempotent) {
+      var submitted = findJobByIdempotencyKey(idempotencyKey, requestHash);
+      if (submitted.isPresent()) {
+        log.info("Job {} was already submitted with idempotency key {}.", submitted.get().getId(), idempotencyKey);
+        return new JobSubmission(entityToDto(submitted.get()), null, false);
+      }
+    }
+
+    checkExportConfig(jobDto);
+    log.info("Upserting DTO {}.", jobDto);
+    Job job = toEntityWithDefaults(jobDto, withJobCommandSend);
+
+    var reusable = findReusableResult ? resultReuseService.findReusableResult(job) : Optional.<Job>empty();
+    var resultReused = reuseResult && reusable.isPresent();
+    if (resultReused) {
+      resultReuseService.applyResult(job, reusable.get());
+    }
+    var sendJobCommand = withJobCommandSend && !resultReused;
+    var reusableJobId = reusable.map(Job::getId).orElse(null);
+
+    return transactionTemplate.execute(status -> {
+      if (idempotent && idempotencyKeyRepository.claim(idempotencyKey, requestHash, job.getUpdatedDate(),
+          idempotencyKeyExpirationDate()) == 0) {
+        // the concurrent submission holding the key has committed meanwhile, or the key was taken by another job
+        return findJobByIdempotencyKey(idempotencyKey, requestHash)
+          .map(submitted -> new JobSubmission(entityToDto(submitted), null, false))
+          .orElseThrow(() -> keyTakenException(idempotencyKey, requestHash));
+      }
+      if (sendJobCommand && jobDto.getId() == null) {
+        resultReuseService.findInFlightLeader(job).ifPresent(leader -> resultReuseService.follow(job, leader));
+      }
+      if (StringUtils.isBlank(job.getName())) {
+        job.setName(String.format("%06d", repository.getNextJobNumber()));
+      }
+      log.info("Upserting {}.", job);
+      var result = repository.save(job);
+      log.info("Upserted {}.", result);
+      if (idempotent) {
+        idempotencyKeyRepository.setJobId(idempotencyKey, result.getId());
+      }
+
+      // a follower gets the result of its leader, no second export is started
+      if (sendJobCommand && result.getLeaderJobId() == null) {
+        var jobCommand = jobExecutionService.prepareStartJobCommand(result);
+        jobExecutionService.sendJobCommand(jobCommand);
+      }
+      return new JobSubmission(entityToDto(result), reusableJobId, resultReused);
+    });
+  }
+
+  /**
+   * Creates several jobs and queues their start commands at once: the job numbers are reserved with one query, the
+   * jobs are inserted with JDBC batching and the commands are written to the outbox in the same transaction. A job
+   * failing validation is rejected on its own, the others are created anyway.
+   */
+  @Override
+  public JobBatchResult submitJobs(List<org.folio.des.domain.dto.Job> jobDtos,
+      Predicate<org.folio.des.domain.dto.Job> isMissingRequiredParameters) {
+    if (jobDtos.size() > MAX_BATCH_SIZE) {
+      throw new IllegalArgumentException(String.format("At most %d jobs can be submitted at once", MAX_BATCH_SIZE));
+    }
+    List<JobBatchItemResult> results = new ArrayList<>(jobDtos.size());
+    // the valid jobs and their commands by position in the batch
+    Map<Integer, Job> jobs = new LinkedHashMap<>();
+    for (int i = 0; i < jobDtos.size(); i++) {
+      var jobDto = jobDtos.get(i);
+      var result = new JobBatchItemResult();
+      result.setIndex(i);
+      results.add(result);
+      try {
+        if (jobDto.getId() != null) {
+          throw new IllegalArgumentException("Only new jobs can be submitted in a batch");
+        }
+        if (isMissingRequiredParameters.test(jobDto)) {
+          throw new IllegalArgumentException("Missing required parameters");
+        }
+        checkExportConfig(jobDto);
+        jobs.put(i, toEntityWithDefaults(jobDto, true));
+      } catch (RuntimeException e) {
+        reject(result, e);
+      }
+    }
+
+    var unnamed = (int) jobs.values().stream().filter(job -> StringUtils.isBlank(job.getName())).count();
+    var jobNumbers = (unnamed == 0 ? List.<Integer>of() : repository.getNextJobNumbers(unnamed)).iterator();
+    Map<Integer, JobCommand> jobCommands = new LinkedHashMap<>();
+    for (var iterator = jobs.entrySet().iterator(); iterator.hasNext(); ) {
+      var entry = iterator.next();
+      var job = entry.getValue();
+      if (StringUtils.isBlank(job.getName())) {
+        job.setName(String.format("%06d", jobNumbers.next()));
+      }
+      try {
+        jobCommands.put(entry.getKey(), jobExecutionService.prepareStartJobCommand(job));
+      } catch (RuntimeException e) {
+        reject(results.get(entry.getKey()), e);
+        iterator.remove();
+      }
+    }
+
+    if (!jobs.isEmpty()) {
+      transactionTemplate.executeWithoutResult(status -> {
+        repository.saveAll(jobs.values());
+        // the job inserts are sent in JDBC batches before the outbox inserts
+        repository.flush();
+        jobCommands.forEach((index, jobCommand) -> jobCommand.setId(jobs.get(index).getId()));
+        jobExecutionService.sendJobCommands(new ArrayList<>(jobCommands.values()));
+      });
+      jobs.forEach((index, job) -> {
+        var result = results.get(index);
+        result.setStatus(JobBatchItemStatus.CREATED);
+        result.setJob(entityToDto(job));
+      });
+    }
+    log.info("Submitted {} of {} jobs.", jobs.size(), jobDtos.size());
+
+    var batchResult = new JobBatchResult();
+    batchResult.setJobResults(results);
+    batchResult.setTotalRecords(results.size());
+    return batchResult;
+  }
+
+  private static void reject(JobBatchItemResult result, RuntimeException e) {
+    log.warn("Job {} of the batch rejected: {}", result.getIndex(), e.getMessage());
+    result.setStatus(JobBatchItemStatus.REJECTED);
+    result.setError(StringUtils.defaultIfBlank(e.getMessage(), e.getClass().getSimpleName()));
+  }
+
+  /**
+   * Checks that the export configuration of an EDIFACT job still exists, otherwise its schedule is turned off.
+   */
+  private void checkExportConfig(org.folio.des.domain.dto.Job jobDto) {
     Optional.ofNullable(jobDto.getExportTypeSpecificParameters())
       .map(ExportTypeSpecificParameters::getVendorEdiOrdersExportConfig)
         .map(VendorEdiOrdersExportConfig::getExportConfigId).ifPresent(configId -> {
@@ -123,57 +526,51 @@ public class JobServiceImpl implements JobService {
 
             throw e;
           }});
+  }
 
-    log.info("Upserting DTO {}.", jobDto);
-    Job result = dtoToEntity(jobDto);
-
-    if (StringUtils.isBlank(result.getName())) {
-      result.setName(String.format("%06d", repository.getNextJobNumber()));
-    }
+  /**
+   * Converts the job to an entity and fills in the defaults of the fields the client did not set.
+   */
+  private Job toEntityWithDefaults(org.folio.des.domain.dto.Job jobDto, boolean withJobCommandSend) {
+    Job job = dtoToEntity(jobDto);
     String userName = FolioExecutionContextHelper.getUserName(context);
-    if (StringUtils.isBlank(result.getSource())) {
-      result.setSource(userName);
+    if (StringUtils.isBlank(job.getSource())) {
+      job.setSource(userName);
     }
-    if (result.getIsSystemSource() == null) {
-      result.setIsSystemSource(StringUtils.isBlank(userName));
+    if (job.getIsSystemSource() == null) {
+      job.setIsSystemSource(StringUtils.isBlank(userName));
     }
-    if (result.getStatus() == null) {
-      result.setStatus(JobStatus.SCHEDULED);
+    if (job.getStatus() == null) {
+      job.setStatus(JobStatus.SCHEDULED);
     }
     var now = new Date();
-    if (result.getCreatedDate() == null) {
-      result.setCreatedDate(now);
+    if (job.getCreatedDate() == null) {
+      job.setCreatedDate(now);
     }
     UUID userId = FolioExecutionContextHelper.getUserId(context);
-    if (result.getCreatedByUserId() == null) {
-      result.setCreatedByUserId(userId);
+    if (job.getCreatedByUserId() == null) {
+      job.setCreatedByUserId(userId);
     }
-    if (StringUtils.isBlank(result.getCreatedByUsername())) {
-      result.setCreatedByUsername(userName);
+    if (StringUtils.isBlank(job.getCreatedByUsername())) {
+      job.setCreatedByUsername(userName);
     }
-    result.setUpdatedDate(now);
-    result.setUpdatedByUserId(userId);
-    result.setUpdatedByUsername(userName);
-    if (StringUtils.isBlank(result.getOutputFormat())) {
-      result.setOutputFormat(OUTPUT_FORMATS.get(result.getType()));
+    job.setUpdatedDate(now);
+    job.setUpdatedByUserId(userId);
+    job.setUpdatedByUsername(userName);
+    if (StringUtils.isBlank(job.getOutputFormat())) {
+      job.setOutputFormat(OUTPUT_FORMATS.get(job.getType()));
     }
-    if (result.getBatchStatus() == null) {
-      result.setBatchStatus(BatchStatus.UNKNOWN);
+    if (job.getBatchStatus() == null) {
+      job.setBatchStatus(BatchStatus.UNKNOWN);
     }
-    if (result.getExitStatus() == null) {
-      result.setExitStatus(ExitStatus.UNKNOWN);
+    if (job.getExitStatus() == null) {
+      job.setExitStatus(ExitStatus.UNKNOWN);
     }
-
-    log.info("Upserting {}.", result);
-    result = repository.save(result);
-    log.info("Upserted {}.", result);
-
     if (withJobCommandSend) {
-      var jobCommand = jobExecutionService.prepareStartJobCommand(result);
-      jobExecutionService.sendJobCommand(jobCommand);
+      job.setDispatchStatus(JobDispatchStatus.PENDING);
     }
-
-    return entityToDto(result);
+    job.setParametersHash(resultReuseService.hashParameters(job));
+    return job;
   }
 
   @Transactional
@@ -188,9 +585,17 @@ public class JobServiceImpl implements JobService {
     jobsToDelete.addAll(filterJobsMatchingExportTypes(repository.findByUpdatedDateBefore(expirationDate), bulkEditTypes));
 
     deleteJobs(jobsToDelete);
+
+    var deletedTombstones = tombstoneRepository.deleteByDeletedDateBefore(createExpirationDate(TOMBSTONE_EXPIRATION_PERIOD));
+    log.info("Deleted {} expired job tombstones.", deletedTombstones);
+
+    var deletedKeys = idempotencyKeyRepository.deleteByCreatedDateBefore(idempotencyKeyExpirationDate());
+    log.info("Deleted {} expired job idempotency keys.", deletedKeys);
   }
 
-  @Transactional
+  /**
+   * Queues a resend command of the job, the configuration is looked up without a transaction.
+   */
   @Override
   public void resendExportedFile(UUID jobId) {
     org.folio.des.domain.dto.Job job = get(jobId);
@@ -201,6 +606,25 @@ public class JobServiceImpl implements JobService {
     jobExecutionService.sendJobCommand(jobCommand);
   }
 
+  private Optional<Job> findJobByIdempotencyKey(String idempotencyKey, String requestHash) {
+    return idempotencyKeyRepository.findJobByKey(idempotencyKey, requestHash, idempotencyKeyExpirationDate());
+  }
+
+  private RuntimeException keyTakenException(String idempotencyKey, String requestHash) {
+    var takenByOtherJob = idempotencyKeyRepository.findById(idempotencyKey)
+      .filter(key -> !Objects.equals(key.getRequestHash(), requestHash))
+      .isPresent();
+    if (takenByOtherJob) {
+      return new IdempotencyKeyReuseException("Idempotency key " + idempotencyKey
+        + " was already used to submit a different job");
+    }
+    return new IllegalStateException("Job submission with idempotency key " + idempotencyKey + " is in progress");
+  }
+
+  private Date idempotencyKeyExpirationDate() {
+    return new Date(System.currentTimeMillis() - idempotencyKeyTtl.toMillis());
+  }
+
   private Date createExpirationDate(int days) {
     return Date.from(LocalDate.now().minusDays(days).atStartOfDay().atZone(ZoneId.systemDefault()).toInstant());
   }
@@ -224,9 +648,21 @@ public class JobServiceImpl implements JobService {
     }
 
     repository.deleteAllInBatch(jobs);
+    var deletedDate = new Date();
+    tombstoneRepository.saveAll(jobs.stream()
+      .map(job -> new JobTombstone(job.getId(), deletedDate))
+      .toList());
     log.info("Deleted old jobs [{}].", StringUtils.join(jobs, ','));
 
-    jobExecutionService.deleteJobs(jobs);
+    // jobs reusing the result of a deleted job or following it share its files, deleted with the last of these jobs
+    var files = jobs.stream()
+      .map(Job::getFiles)
+      .filter(CollectionUtils::isNotEmpty)
+      .flatMap(Collection::stream)
+      .distinct()
+      .toList();
+    Set<String> sharedFiles = files.isEmpty() ? Set.of() : new HashSet<>(repository.findReferencedFiles(files));
+    jobExecutionService.deleteJobs(jobs, sharedFiles);
   }
 
   @Override
@@ -7,6 +7,7 @@ import java.util.Map;
 import java.util.UUID;
 import lombok.experimental.UtilityClass;
 import lombok.extern.log4j.Log4j2;
+import org.folio.des.domain.ResultPage;
 import org.folio.des.domain.dto.BursarExportDataToken;
 import org.folio.des.domain.dto.BursarExportFilter;
 import org.folio.des.domain.dto.BursarExportFilterAge;
@@ -60,24 +61,19 @@ public class LegacyBursarMigrationUtil {
     JobService jobService
   ) {
     log.info("searching for legacy jobs");
-    LegacyJobCollection response = bursarExportLegacyJobService.get(
-      0,
-      DEFAULT_LIMIT,
-      "status==SCHEDULED"
-    );
     List<LegacyJob> jobsToRecreate = new ArrayList<>();
 
-    int total = response.getTotalRecords();
-    jobsToRecreate.addAll(response.getJobRecords());
-    while (jobsToRecreate.size() < total) {
-      response =
-        bursarExportLegacyJobService.get(
-          jobsToRecreate.size(),
-          DEFAULT_LIMIT,
-          "status==SCHEDULED"
-        );
-      jobsToRecreate.addAll(response.getJobRecords());
-    }
+    // walk the scheduled jobs with a keyset cursor, so each page is a single index range read
+    String cursor = "";
+    do {
+      ResultPage<LegacyJobCollection> page = bursarExportLegacyJobService.getAfter(
+        cursor,
+        DEFAULT_LIMIT,
+        "status==SCHEDULED"
+      );
+      jobsToRecreate.addAll(page.getContent().getJobRecords());
+      cursor = page.getNextCursor();
+    } while (cursor != null);
 
     for (LegacyJob legacyJob : jobsToRecreate) {
       log.info("job to recreate: {}", legacyJob);
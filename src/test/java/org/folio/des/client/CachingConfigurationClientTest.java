@@ -0,0 +1,127 @@
+package org.folio.des.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.folio.des.domain.dto.ConfigurationCollection;
+import org.folio.des.domain.dto.ModelConfiguration;
+import org.folio.spring.FolioExecutionContext;
+import org.folio.spring.exception.NotFoundException;
+import org.junit.jupiter.api.Test;
+
+class CachingConfigurationClientTest {
+
+  private static final String ENTRY_ID = "c8303ff3-7dec-49a1-acc8-7ce4f311fe21";
+
+  private final ConfigurationClient delegate = mock(ConfigurationClient.class);
+  private final FolioExecutionContext context = mock(FolioExecutionContext.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final CachingConfigurationClient client = new CachingConfigurationClient(delegate, context,
+    new ObjectMapper().findAndRegisterModules(), Duration.ofMinutes(1), 100, meterRegistry);
+
+  @Test
+  void shouldCacheEntriesPerTenantUntilWritten() {
+    var configuration = new ModelConfiguration().id(ENTRY_ID);
+    when(delegate.getConfigById(ENTRY_ID)).thenReturn(configuration);
+    when(context.getTenantId()).thenReturn("diku");
+
+    assertEquals(configuration, client.getConfigById(ENTRY_ID));
+    assertEquals(configuration, client.getConfigById(ENTRY_ID));
+    verify(delegate, times(1)).getConfigById(ENTRY_ID);
+
+    when(context.getTenantId()).thenReturn("college");
+    client.getConfigById(ENTRY_ID);
+    verify(delegate, times(2)).getConfigById(ENTRY_ID);
+
+    client.putConfiguration(configuration, ENTRY_ID);
+    client.getConfigById(ENTRY_ID);
+    verify(delegate, times(3)).getConfigById(ENTRY_ID);
+
+    assertEquals(3, meterRegistry.get("cache.gets").tag("cache", "export-config-entries").tag("result", "miss")
+      .functionCounter().count());
+    assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "export-config-entries").tag("result", "hit")
+      .functionCounter().count());
+  }
+
+  @Test
+  void shouldReturnCopiesOfCachedEntries() {
+    var configuration = new ModelConfiguration().id(ENTRY_ID);
+    configuration.setValue("{}");
+    when(delegate.getConfigById(ENTRY_ID)).thenReturn(configuration);
+    when(context.getTenantId()).thenReturn("diku");
+
+    var read = client.getConfigById(ENTRY_ID);
+    read.setValue("changed by the caller");
+
+    var reread = client.getConfigById(ENTRY_ID);
+    assertNotSame(read, reread);
+    assertEquals("{}", reread.getValue());
+    verify(delegate, times(1)).getConfigById(ENTRY_ID);
+  }
+
+  @Test
+  void shouldInvalidateQueriesOfTenantOnWrite() {
+    when(context.getTenantId()).thenReturn("diku");
+    when(delegate.getConfigurations("module==mod-data-export-spring", 10)).thenReturn(new ConfigurationCollection());
+
+    client.getConfigurations("module==mod-data-export-spring", 10);
+    client.getConfigurations("module==mod-data-export-spring", 10);
+    client.deleteConfigById(ENTRY_ID);
+    client.getConfigurations("module==mod-data-export-spring", 10);
+
+    verify(delegate, times(2)).getConfigurations("module==mod-data-export-spring", 10);
+  }
+
+  @Test
+  void shouldNotCacheFailedLoads() {
+    when(context.getTenantId()).thenReturn("diku");
+    when(delegate.getConfigById(ENTRY_ID)).thenThrow(new NotFoundException("not found"));
+
+    assertThrows(NotFoundException.class, () -> client.getConfigById(ENTRY_ID));
+    assertThrows(NotFoundException.class, () -> client.getConfigById(ENTRY_ID));
+    verify(delegate, times(2)).getConfigById(ENTRY_ID);
+  }
+
+  @Test
+  void shouldCoalesceConcurrentMisses() throws Exception {
+    var loading = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    when(context.getTenantId()).thenReturn("diku");
+    when(delegate.getConfigById(ENTRY_ID)).thenAnswer(invocation -> {
+      loading.countDown();
+      release.await(10, TimeUnit.SECONDS);
+      return new ModelConfiguration().id(ENTRY_ID);
+    });
+
+    var executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<ModelConfiguration>> reads = new ArrayList<>();
+      reads.add(executor.submit(() -> client.getConfigById(ENTRY_ID)));
+      loading.await(10, TimeUnit.SECONDS);
+      for (int i = 0; i < 3; i++) {
+        reads.add(executor.submit(() -> client.getConfigById(ENTRY_ID)));
+      }
+      release.countDown();
+      for (Future<ModelConfiguration> read : reads) {
+        assertEquals(ENTRY_ID, read.get(10, TimeUnit.SECONDS).getId());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    verify(delegate, times(1)).getConfigById(ENTRY_ID);
+  }
+}
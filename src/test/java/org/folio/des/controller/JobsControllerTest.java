@@ -2,20 +2,29 @@ package org.folio.des.controller;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.ResultMatcher.matchAll;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.testcontainers.shaded.org.awaitility.Awaitility.await;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 import org.folio.des.client.ExportWorkerClient;
 import org.folio.des.domain.dto.AuthorityControlExportConfig;
@@ -23,7 +32,9 @@ import org.folio.des.domain.dto.EHoldingsExportConfig;
 import org.folio.des.domain.dto.ExportType;
 import org.folio.des.domain.dto.ExportTypeSpecificParameters;
 import org.folio.des.domain.dto.Job;
+import org.folio.des.domain.dto.JobStatus;
 import org.folio.des.domain.dto.PresignedUrl;
+import org.folio.des.service.JobEventsService;
 import org.folio.des.support.BaseTest;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.DisplayName;
@@ -33,8 +44,10 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
 
@@ -45,6 +58,8 @@ class JobsControllerTest extends BaseTest {
 
   @MockBean
   ExportWorkerClient exportWorkerClient;
+  @Autowired
+  JdbcTemplate jdbcTemplate;
   private static final String JOB_BURSAR_REQUEST =
     """
       {
@@ -119,6 +134,344 @@ class JobsControllerTest extends BaseTest {
                 jsonPath("$.jobRecords", hasSize(3))));
   }
 
+  @Test
+  @DisplayName("Walk jobs with keyset cursor")
+  void findJobsByCursor() throws Exception {
+    var firstPage = mockMvc
+        .perform(
+            get("/data-export-spring/jobs?limit=5&cursor=")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .headers(defaultHeaders()))
+        .andExpect(
+            matchAll(
+                status().isOk(),
+                header().exists(JobsController.NEXT_CURSOR_HEADER),
+                jsonPath("$.totalRecords", is(8)),
+                jsonPath("$.jobRecords", hasSize(5))))
+        .andReturn();
+
+    mockMvc
+        .perform(
+            get("/data-export-spring/jobs")
+                .param("limit", "5")
+                .param("cursor", firstPage.getResponse().getHeader(JobsController.NEXT_CURSOR_HEADER))
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .headers(defaultHeaders()))
+        .andExpect(
+            matchAll(
+                status().isOk(),
+                header().doesNotExist(JobsController.NEXT_CURSOR_HEADER),
+                jsonPath("$.totalRecords").doesNotExist(),
+                jsonPath("$.jobRecords", hasSize(3))));
+  }
+
+  @Test
+  @DisplayName("Walk jobs with keyset cursor sorted by a numeric key, reject sort keys without cursor values")
+  void findJobsByCursorSortKeys() throws Exception {
+    var firstPage = mockMvc
+        .perform(
+            get("/data-export-spring/jobs?limit=5&cursor=&query=cql.allRecords=1 sortby updateSequence")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .headers(defaultHeaders()))
+        .andExpect(
+            matchAll(
+                status().isOk(),
+                header().exists(JobsController.NEXT_CURSOR_HEADER),
+                jsonPath("$.jobRecords", hasSize(5))))
+        .andReturn();
+
+    mockMvc
+        .perform(
+            get("/data-export-spring/jobs")
+                .param("limit", "5")
+                .param("query", "cql.allRecords=1 sortby updateSequence")
+                .param("cursor", firstPage.getResponse().getHeader(JobsController.NEXT_CURSOR_HEADER))
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .headers(defaultHeaders()))
+        .andExpect(
+            matchAll(
+                status().isOk(),
+                jsonPath("$.jobRecords", hasSize(3))));
+
+    mockMvc
+        .perform(
+            get("/data-export-spring/jobs?limit=5&cursor=&query=cql.allRecords=1 sortby exportTypeSpecificParameters")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .headers(defaultHeaders()))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @DisplayName("Find jobs with sparse fieldset")
+  void findJobsWithFields() throws Exception {
+    mockMvc
+        .perform(
+            get("/data-export-spring/jobs?limit=3&offset=0&fields=name,status&query=status==SUCCESSFUL")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .headers(defaultHeaders()))
+        .andExpect(
+            matchAll(
+                status().isOk(),
+                jsonPath("$.jobRecords[0].id").exists(),
+                jsonPath("$.jobRecords[0].name").exists(),
+                jsonPath("$.jobRecords[0].status", is("SUCCESSFUL")),
+                jsonPath("$.jobRecords[0].type").doesNotExist(),
+                jsonPath("$.jobRecords[0].exportTypeSpecificParameters").doesNotExist(),
+                jsonPath("$.jobRecords[0].metadata").doesNotExist()));
+
+    mockMvc
+        .perform(
+            get("/data-export-spring/jobs?limit=3&fields=unknown")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .headers(defaultHeaders()))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @DisplayName("Find jobs without counting")
+  void findJobsWithoutTotalRecords() throws Exception {
+    mockMvc
+        .perform(
+            get("/data-export-spring/jobs?limit=5&offset=0&totalRecords=none")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .headers(defaultHeaders()))
+        .andExpect(
+            matchAll(
+                status().isOk(),
+                header().string(JobsController.HAS_MORE_HEADER, "true"),
+                jsonPath("$.totalRecords").doesNotExist(),
+                jsonPath("$.jobRecords", hasSize(5))));
+
+    mockMvc
+        .perform(
+            get("/data-export-spring/jobs?limit=5&offset=5&totalRecords=none")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .headers(defaultHeaders()))
+        .andExpect(
+            matchAll(
+                status().isOk(),
+                header().string(JobsController.HAS_MORE_HEADER, "false"),
+                jsonPath("$.jobRecords", hasSize(3))));
+  }
+
+  @Test
+  @DisplayName("Find jobs with estimated total records")
+  void findJobsWithEstimatedTotalRecords() throws Exception {
+    mockMvc
+        .perform(
+            get("/data-export-spring/jobs?limit=5&totalRecords=estimated&query=status==SUCCESSFUL")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .headers(defaultHeaders()))
+        .andExpect(
+            matchAll(
+                status().isOk(),
+                header().doesNotExist(JobsController.HAS_MORE_HEADER),
+                jsonPath("$.totalRecords").isNumber()));
+
+    mockMvc
+        .perform(
+            get("/data-export-spring/jobs?limit=5&totalRecords=approximate")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .headers(defaultHeaders()))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @DisplayName("Stream jobs as NDJSON")
+  void streamJobs() throws Exception {
+    var result = mockMvc
+        .perform(
+            get("/data-export-spring/jobs/stream?query=status==SUCCESSFUL")
+                .headers(defaultHeaders()))
+        .andExpect(
+            matchAll(
+                status().isOk(),
+                content().contentType(JobsController.APPLICATION_NDJSON_VALUE)))
+        .andReturn();
+
+    var lines = result.getResponse().getContentAsString().lines().toList();
+    assertFalse(lines.isEmpty());
+    for (String line : lines) {
+      assertEquals(JobStatus.SUCCESSFUL, MAPPER.readValue(line, Job.class).getStatus());
+    }
+  }
+
+  @Test
+  @DisplayName("Get job changes page by page")
+  void getJobChanges() throws Exception {
+    var firstPage = mockMvc
+        .perform(
+            get("/data-export-spring/jobs/changes?limit=5")
+                .headers(defaultHeaders()))
+        .andExpect(
+            matchAll(
+                status().isOk(),
+                header().exists(JobsController.NEXT_CURSOR_HEADER),
+                jsonPath("$.jobRecords", hasSize(5)),
+                jsonPath("$.watermark").exists()))
+        .andReturn();
+
+    mockMvc
+        .perform(
+            get("/data-export-spring/jobs/changes?limit=5&cursor="
+              + firstPage.getResponse().getHeader(JobsController.NEXT_CURSOR_HEADER))
+                .headers(defaultHeaders()))
+        .andExpect(
+            matchAll(
+                status().isOk(),
+                header().doesNotExist(JobsController.NEXT_CURSOR_HEADER),
+                jsonPath("$.jobRecords", hasSize(3))));
+  }
+
+  @Test
+  @DisplayName("No job changes after the watermark")
+  void getJobChangesAfterWatermark() throws Exception {
+    mockMvc
+        .perform(
+            get("/data-export-spring/jobs/changes?since=2999-01-01T00:00:00Z")
+                .headers(defaultHeaders()))
+        .andExpect(
+            matchAll(
+                status().isOk(),
+                jsonPath("$.jobRecords", hasSize(0)),
+                jsonPath("$.deletedJobIds", hasSize(0)),
+                jsonPath("$.watermark", is("2999-01-01T00:00:00Z")),
+                jsonPath("$.resyncRequired", is(false))));
+  }
+
+  @Test
+  @DisplayName("Repeat job changes shortly before the watermark")
+  void getJobChangesInOverlapBeforeWatermark() throws Exception {
+    // the last jobs were updated 30 seconds before the watermark, they may have committed after it was returned
+    var since = LocalDateTime.parse("2021-03-17T01:59:18.323").atZone(ZoneId.systemDefault()).toInstant().toString();
+    mockMvc
+        .perform(
+            get("/data-export-spring/jobs/changes")
+                .param("since", since)
+                .headers(defaultHeaders()))
+        .andExpect(
+            matchAll(
+                status().isOk(),
+                jsonPath("$.jobRecords", hasSize(2)),
+                jsonPath("$.watermark", is(since))));
+  }
+
+  @Test
+  @DisplayName("Reject a malformed watermark")
+  void getJobChangesWithInvalidWatermark() throws Exception {
+    mockMvc
+        .perform(
+            get("/data-export-spring/jobs/changes?since=yesterday")
+                .headers(defaultHeaders()))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @DisplayName("Push the state and the changes of a job as Server-Sent Events")
+  void streamJobEventsById() throws Exception {
+    var result = mockMvc
+        .perform(
+            get("/data-export-spring/jobs/12ae5d0f-1525-44a1-a361-0bc9b88e8179/events")
+                .headers(defaultHeaders()))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> result.getResponse().getContentAsString()
+      .contains("\"status\":\"SUCCESSFUL\""));
+
+    jdbcTemplate.queryForList("SELECT 1 FROM pg_notify(?, ?)", JobEventsService.CHANNEL,
+      "{\"tenant\":\"" + TENANT + "\",\"job\":{\"id\":\"12ae5d0f-1525-44a1-a361-0bc9b88e8179\",\"status\":\"FAILED\"}}");
+    jdbcTemplate.queryForList("SELECT 1 FROM pg_notify(?, ?)", JobEventsService.CHANNEL,
+      "{\"tenant\":\"" + TENANT + "\",\"job\":{\"id\":\"35ae5d0f-1525-42a1-a361-1bc9b88e8180\",\"status\":\"SCHEDULED\"}}");
+
+    await().atMost(10, TimeUnit.SECONDS).until(() -> result.getResponse().getContentAsString()
+      .contains("\"status\":\"FAILED\""));
+    assertFalse(result.getResponse().getContentAsString().contains("35ae5d0f-1525-42a1-a361-1bc9b88e8180"));
+  }
+
+  @Test
+  @DisplayName("Can not subscribe to the events of an unknown job")
+  void streamJobEventsOfUnknownJob() throws Exception {
+    mockMvc
+        .perform(
+            get("/data-export-spring/jobs/00000000-0000-0000-0000-000000000000/events")
+                .headers(defaultHeaders()))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  @DisplayName("Wait for a job already in the awaited status")
+  void waitForFinishedJob() throws Exception {
+    var result = mockMvc
+        .perform(
+            get("/data-export-spring/jobs/12ae5d0f-1525-44a1-a361-0bc9b88e8179/wait?status=SUCCESSFUL,FAILED&timeout=5s")
+                .headers(defaultHeaders()))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(
+            matchAll(
+                status().isOk(),
+                jsonPath("$.id", is("12ae5d0f-1525-44a1-a361-0bc9b88e8179")),
+                jsonPath("$.status", is("SUCCESSFUL"))));
+  }
+
+  @Test
+  @DisplayName("Wait for a job until it changes to the awaited status")
+  void waitForJobStatusChange() throws Exception {
+    var result = mockMvc
+        .perform(
+            get("/data-export-spring/jobs/35ae5d0f-1525-42a1-a361-1bc9b88e8180/wait?status=FAILED&timeout=30s")
+                .headers(defaultHeaders()))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    jdbcTemplate.queryForList("SELECT 1 FROM pg_notify(?, ?)", JobEventsService.CHANNEL,
+      "{\"tenant\":\"" + TENANT + "\",\"job\":{\"id\":\"35ae5d0f-1525-42a1-a361-1bc9b88e8180\",\"status\":\"FAILED\"}}");
+
+    result.getAsyncResult(10_000);
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(
+            matchAll(
+                status().isOk(),
+                jsonPath("$.id", is("35ae5d0f-1525-42a1-a361-1bc9b88e8180")),
+                jsonPath("$.status", is("FAILED"))));
+  }
+
+  @Test
+  @DisplayName("Can not wait for an unknown job")
+  void waitForUnknownJob() throws Exception {
+    mockMvc
+        .perform(
+            get("/data-export-spring/jobs/00000000-0000-0000-0000-000000000000/wait")
+                .headers(defaultHeaders()))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  @DisplayName("Get the statuses of several jobs")
+  void getJobStatuses() throws Exception {
+    mockMvc
+        .perform(
+            post("/data-export-spring/jobs/status")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .headers(defaultHeaders())
+                .content("{\"ids\": [\"35ae5d0f-1525-42a1-a361-1bc9b88e8180\", \"00000000-0000-0000-0000-000000000000\", "
+                  + "\"12ae5d0f-1525-44a1-a361-0bc9b88e8179\"]}"))
+        .andExpect(
+            matchAll(
+                status().isOk(),
+                content().contentType(MediaType.APPLICATION_JSON_VALUE),
+                jsonPath("$.totalRecords", is(2)),
+                jsonPath("$.jobStatuses[0].id", is("35ae5d0f-1525-42a1-a361-1bc9b88e8180")),
+                jsonPath("$.jobStatuses[1].id", is("12ae5d0f-1525-44a1-a361-0bc9b88e8179")),
+                jsonPath("$.jobStatuses[0].status").exists(),
+                jsonPath("$.jobStatuses[0].exportTypeSpecificParameters").doesNotExist()));
+  }
+
   @Test
   @DisplayName("No jobs found cause invalid query")
   void notFoundJobs() throws Exception {
@@ -165,6 +518,22 @@ class JobsControllerTest extends BaseTest {
               jsonPath("$.jobRecords", hasSize(7))));
   }
 
+  @Test
+  @DisplayName("Find jobs by a list of ids")
+  void findJobsByIdList() throws Exception {
+    mockMvc
+        .perform(
+            get("/data-export-spring/jobs?limit=30&offset=0&query=id==(12ae5d0f-1525-44a1-a361-0bc9b88e8179 or 35ae5d0f-1525-42a1-a361-1bc9b88e8180 or 00000000-0000-0000-0000-000000000000) sortby name")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .headers(defaultHeaders()))
+        .andExpect(
+            matchAll(
+                status().isOk(),
+                content().contentType(MediaType.APPLICATION_JSON_VALUE),
+              jsonPath("$.totalRecords", is(2)),
+              jsonPath("$.jobRecords", hasSize(2))));
+  }
+
   @Test
   @DisplayName("Find jobs by source or desc")
   void findJobsBySourceOrDesc() throws Exception {
@@ -512,6 +881,8 @@ class JobsControllerTest extends BaseTest {
   @CsvSource({
     "jsonb.exportTypeSpecificParameters.vendorEdiOrdersExportConfig.exportConfigId==\"f18d8154-a02f-4414-9c52-c4f9083f1c32\"",
     "jsonb.exportTypeSpecificParameters.vendorEdiOrdersExportConfig.ediFtp.ftpConnMode==\"Active\"",
+    "jsonb.exportTypeSpecificParameters.vendorEdiOrdersExportConfig.isDefaultConfig==false",
+    "jsonb.exportTypeSpecificParameters.vendorEdiOrdersExportConfig.exportConfigId==\"f18d8154-a02f-4414-9c52-c4f9083f1c32\" sortby jsonb.exportTypeSpecificParameters.vendorEdiOrdersExportConfig.vendorId/sort.descending",
     "status==\"SCHEDULED\" and type==\"EDIFACT_ORDERS_EXPORT\" and jsonb.exportTypeSpecificParameters.vendorEdiOrdersExportConfig.exportConfigId==\"f18d8154-a02f-4414-9c52-c4f9083f1c32\" and jsonb.exportTypeSpecificParameters.vendorEdiOrdersExportConfig.vendorId==\"11fb627a-cdf1-11e8-a8d5-f2801f1b9fd1\""
   })
   void findJobsByJSONBQuery(String query) throws Exception {
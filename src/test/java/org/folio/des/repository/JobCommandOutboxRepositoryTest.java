@@ -0,0 +1,122 @@
+package org.folio.des.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.folio.de.entity.JobCommandOutboxMessage;
+import org.folio.des.service.JobCommandOutboxRelay;
+import org.folio.des.support.BaseTest;
+import org.folio.spring.DefaultFolioExecutionContext;
+import org.folio.spring.FolioModuleMetadata;
+import org.folio.spring.integration.XOkapiHeaders;
+import org.folio.spring.scope.FolioExecutionScopeExecutionContextManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class JobCommandOutboxRepositoryTest extends BaseTest {
+
+  @Autowired
+  private JobCommandOutboxRepository outboxRepository;
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+  @Autowired
+  private FolioModuleMetadata folioModuleMetadata;
+  /** The records committed by the tests are only claimed by the tests. */
+  @MockBean
+  private JobCommandOutboxRelay relay;
+
+  @BeforeEach
+  void beginContext() {
+    beginTenantContext();
+  }
+
+  @AfterEach
+  void endContext() {
+    outboxRepository.deleteAll();
+    FolioExecutionScopeExecutionContextManager.endFolioExecutionContext();
+  }
+
+  @Test
+  void lockOldestRecordOfEachKey() {
+    // not committed, so the relay does not send the records
+    transactionTemplate.executeWithoutResult(status -> {
+      var first = outboxRepository.save(newMessage("job-a"));
+      outboxRepository.save(newMessage("job-a"));
+      var other = outboxRepository.save(newMessage("job-b"));
+
+      var locked = outboxRepository.lockNext(10);
+
+      assertEquals(List.of(first.getId(), other.getId()), locked.stream().map(JobCommandOutboxMessage::getId).toList());
+      assertEquals(1, outboxRepository.lockNext(1).size());
+      status.setRollbackOnly();
+    });
+  }
+
+  @Test
+  void concurrentClaimersSkipLockedRecords() throws Exception {
+    var first = outboxRepository.save(newMessage("job-a"));
+    var second = outboxRepository.save(newMessage("job-b"));
+    var locked = new CountDownLatch(1);
+    var claimed = new CountDownLatch(1);
+    var executor = Executors.newSingleThreadExecutor();
+    try {
+      // another module instance claims the first record and holds its lock
+      var other = executor.submit(() -> {
+        beginTenantContext();
+        try {
+          return transactionTemplate.execute(status -> {
+            var ids = outboxRepository.lockNext(1).stream().map(JobCommandOutboxMessage::getId).toList();
+            locked.countDown();
+            try {
+              claimed.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return ids;
+          });
+        } finally {
+          FolioExecutionScopeExecutionContextManager.endFolioExecutionContext();
+        }
+      });
+      assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+      // not blocked by the lock of the other instance
+      var ids = transactionTemplate.execute(status -> outboxRepository.lockNext(10).stream()
+        .map(JobCommandOutboxMessage::getId)
+        .toList());
+      claimed.countDown();
+
+      assertEquals(List.of(second.getId()), ids);
+      assertEquals(List.of(first.getId()), other.get(10, TimeUnit.SECONDS));
+    } finally {
+      claimed.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  private void beginTenantContext() {
+    FolioExecutionScopeExecutionContextManager.beginFolioExecutionContext(
+      new DefaultFolioExecutionContext(folioModuleMetadata, Map.of(XOkapiHeaders.TENANT, List.of(TENANT))));
+  }
+
+  private static JobCommandOutboxMessage newMessage(String key) {
+    var message = new JobCommandOutboxMessage();
+    message.setTopic("folio.diku.data-export.job.command");
+    message.setMessageKey(key);
+    message.setPayload("{}".getBytes(StandardCharsets.UTF_8));
+    message.setHeaders(Map.of(XOkapiHeaders.TENANT, TENANT));
+    message.setCreatedDate(new Date());
+    return message;
+  }
+}
@@ -0,0 +1,68 @@
+package org.folio.des.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import org.folio.de.entity.Job;
+import org.folio.des.domain.dto.ExportType;
+import org.folio.des.domain.dto.ExportTypeSpecificParameters;
+import org.folio.des.domain.dto.JobStatus;
+import org.folio.des.support.BaseTest;
+import org.folio.spring.DefaultFolioExecutionContext;
+import org.folio.spring.FolioModuleMetadata;
+import org.folio.spring.integration.XOkapiHeaders;
+import org.folio.spring.scope.FolioExecutionScopeExecutionContextManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
+
+@Sql(executionPhase = ExecutionPhase.AFTER_TEST_METHOD, scripts = "classpath:clearDb.sql")
+class JobDataExportRepositoryTest extends BaseTest {
+
+  private static final String PARAMETERS_HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+  @Autowired
+  private JobDataExportRepository repository;
+  @Autowired
+  private FolioModuleMetadata folioModuleMetadata;
+
+  @BeforeEach
+  void beginContext() {
+    FolioExecutionScopeExecutionContextManager.beginFolioExecutionContext(
+      new DefaultFolioExecutionContext(folioModuleMetadata, Map.of(XOkapiHeaders.TENANT, List.of(TENANT))));
+  }
+
+  @AfterEach
+  void endContext() {
+    FolioExecutionScopeExecutionContextManager.endFolioExecutionContext();
+  }
+
+  @Test
+  void findFilesSharedWithReusingJobAfterSourceExpired() {
+    var source = repository.save(newJob(List.of("shared.csv", "own.csv"), PARAMETERS_HASH));
+    // reused the result of the source job, so it expires later
+    repository.save(newJob(List.of("shared.csv"), PARAMETERS_HASH));
+    repository.save(newJob(null, null));
+
+    repository.deleteAllInBatch(List.of(source));
+
+    assertEquals(List.of("shared.csv"), repository.findReferencedFiles(List.of("shared.csv", "own.csv")));
+  }
+
+  private static Job newJob(List<String> files, String parametersHash) {
+    var job = new Job();
+    job.setType(ExportType.CIRCULATION_LOG);
+    job.setExportTypeSpecificParameters(new ExportTypeSpecificParameters());
+    job.setStatus(JobStatus.SUCCESSFUL);
+    job.setFiles(files);
+    job.setParametersHash(parametersHash);
+    job.setCreatedDate(new Date());
+    job.setUpdatedDate(new Date());
+    return job;
+  }
+}
@@ -0,0 +1,167 @@
+package org.folio.des.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.folio.des.domain.dto.JobStatus;
+import org.folio.des.domain.dto.Progress;
+import org.folio.des.domain.dto.VendorEdiOrdersExportConfig;
+import org.folio.des.repository.JobExecutionUpdateRepository.JobExecutionUpdate;
+import org.folio.des.repository.JobExecutionUpdateRepository.JobExecutionUpdateResult;
+import org.folio.des.support.BaseTest;
+import org.folio.spring.DefaultFolioExecutionContext;
+import org.folio.spring.FolioModuleMetadata;
+import org.folio.spring.integration.XOkapiHeaders;
+import org.folio.spring.scope.FolioExecutionScopeExecutionContextManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Sql(executionPhase = ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:job.sql")
+@Sql(executionPhase = ExecutionPhase.AFTER_TEST_METHOD, scripts = "classpath:clearDb.sql")
+class JobExecutionUpdateRepositoryTest extends BaseTest {
+
+  private static final UUID JOB_ID = UUID.fromString("35ae5d0f-1525-42a1-a361-1bc9b88e8180");
+  private static final String SELECT_JOB = "SELECT description, status::text, batch_status::text, update_sequence, "
+    + "export_type_specific_parameters->'vendorEdiOrdersExportConfig'->>'configName' AS config_name "
+    + "FROM diku_mod_data_export_spring.job WHERE id = ?";
+
+  @Autowired
+  private JobExecutionUpdateRepository updateRepository;
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+  @Autowired
+  private FolioModuleMetadata folioModuleMetadata;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void beginContext() {
+    FolioExecutionScopeExecutionContextManager.beginFolioExecutionContext(
+      new DefaultFolioExecutionContext(folioModuleMetadata, Map.of(XOkapiHeaders.TENANT, List.of(TENANT))));
+  }
+
+  @AfterEach
+  void endContext() {
+    FolioExecutionScopeExecutionContextManager.endFolioExecutionContext();
+  }
+
+  @Test
+  void applyUpdatesInOrder() {
+    var config = new VendorEdiOrdersExportConfig();
+    config.setConfigName("testConfig");
+    var update = newUpdate(JOB_ID, 100L);
+    update.setDescription("Test job updated");
+    update.setVendorEdiOrdersExportConfig(config);
+    update.setBatchStatus(BatchStatus.STARTED);
+    update.setStatus(JobStatus.IN_PROGRESS);
+
+    var result = apply(update);
+    assertTrue(result.isApplied());
+    assertTrue(result.isChanged());
+    assertEquals(BatchStatus.COMPLETED, result.getPreviousBatchStatus());
+    assertEquals(JobStatus.IN_PROGRESS, result.getStatus());
+    var job = jdbcTemplate.queryForMap(SELECT_JOB, JOB_ID);
+    assertEquals("Test job updated", job.get("description"));
+    assertEquals("IN_PROGRESS", job.get("status"));
+    assertEquals(100L, job.get("update_sequence"));
+    assertEquals("testConfig", job.get("config_name"));
+
+    // delivered out of order
+    var staleUpdate = newUpdate(JOB_ID, 50L);
+    staleUpdate.setBatchStatus(BatchStatus.STARTING);
+    result = apply(staleUpdate);
+    assertTrue(result.isStale());
+    assertFalse(result.isApplied());
+    assertEquals("STARTED", jdbcTemplate.queryForMap(SELECT_JOB, JOB_ID).get("batch_status"));
+
+    var sameUpdate = newUpdate(JOB_ID, 200L);
+    sameUpdate.setDescription("Test job updated");
+    result = apply(sameUpdate);
+    assertFalse(result.isStale());
+    assertFalse(result.isApplied());
+    assertEquals(100L, jdbcTemplate.queryForMap(SELECT_JOB, JOB_ID).get("update_sequence"));
+  }
+
+  @Test
+  void keepFinalStatusAgainstUpdateWithSameSequence() {
+    var completed = newUpdate(JOB_ID, 100L);
+    completed.setBatchStatus(BatchStatus.FAILED);
+    completed.setStatus(JobStatus.FAILED);
+    assertTrue(apply(completed).isChanged());
+
+    var started = newUpdate(JOB_ID, 100L);
+    started.setBatchStatus(BatchStatus.STARTED);
+    started.setStatus(JobStatus.IN_PROGRESS);
+    var result = apply(started);
+    assertTrue(result.isStale());
+    assertFalse(result.isApplied());
+    assertEquals("FAILED", jdbcTemplate.queryForMap(SELECT_JOB, JOB_ID).get("status"));
+  }
+
+  @Test
+  void compareFilesRegardlessOfOrder() {
+    var update = newUpdate(JOB_ID, 100L);
+    update.setFiles(List.of("http://files/a.csv", "http://files/b.csv"));
+    update.setFileNames(List.of("a.csv", "b.csv"));
+    assertTrue(apply(update).isChanged());
+
+    var reordered = newUpdate(JOB_ID, 200L);
+    reordered.setFiles(List.of("http://files/b.csv", "http://files/a.csv"));
+    reordered.setFileNames(List.of("b.csv", "a.csv"));
+    var result = apply(reordered);
+    assertFalse(result.isApplied());
+    assertEquals(100L, jdbcTemplate.queryForMap(SELECT_JOB, JOB_ID).get("update_sequence"));
+  }
+
+  @Test
+  void applyProgressUpdatesInOrder() {
+    var update = newUpdate(JOB_ID, 100L);
+    update.setProgress(new Progress().progress(50).processed(5).total(10));
+
+    var result = apply(update);
+    assertTrue(result.isApplied());
+    assertFalse(result.isChanged());
+    assertEquals(50, result.getProgress().getProgress());
+    assertEquals(JobStatus.SUCCESSFUL, result.getStatus());
+    assertEquals(1, jdbcTemplate.queryForObject(
+      "SELECT count(*) FROM diku_mod_data_export_spring.job WHERE id = ? AND update_sequence IS NULL", Integer.class, JOB_ID));
+
+    var staleUpdate = newUpdate(JOB_ID, 50L);
+    staleUpdate.setProgress(new Progress().progress(10).processed(1).total(10));
+    result = apply(staleUpdate);
+    assertTrue(result.isStale());
+    assertFalse(result.isApplied());
+    assertEquals(50, jdbcTemplate.queryForObject("SELECT (progress->>'progress')::int "
+      + "FROM diku_mod_data_export_spring.job_progress WHERE job_id = ?", Integer.class, JOB_ID));
+  }
+
+  @Test
+  void applyUpdateOfUnknownJob() {
+    var update = newUpdate(UUID.randomUUID(), 100L);
+    update.setDescription("Unknown job");
+
+    assertTrue(transactionTemplate.execute(status -> updateRepository.apply(update)).isEmpty());
+  }
+
+  private JobExecutionUpdateResult apply(JobExecutionUpdate update) {
+    return transactionTemplate.execute(status -> updateRepository.apply(update)).orElseThrow();
+  }
+
+  private static JobExecutionUpdate newUpdate(UUID id, long sequence) {
+    var update = new JobExecutionUpdate();
+    update.setId(id);
+    update.setSequence(sequence);
+    return update;
+  }
+}
@@ -0,0 +1,129 @@
+package org.folio.des.repository;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import javax.sql.DataSource;
+import lombok.Value;
+import lombok.extern.log4j.Log4j2;
+import org.folio.des.support.BaseTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
+
+/**
+ * Benchmarks the write amplification of 10k progress updates: the WAL written and the growth of the table and its
+ * indexes, with the progress in the wide job row like before and in the narrow job_progress table. Both tables get the
+ * same conditional update statement in the same JDBC batches, so only the row layout differs. A concurrent
+ * long-running reader, e.g. a job export stream, keeps the dead row versions from being pruned meanwhile.
+ */
+@Log4j2
+@Sql(executionPhase = ExecutionPhase.AFTER_TEST_METHOD, scripts = "classpath:clearDb.sql")
+class JobProgressWriteAmplificationTest extends BaseTest {
+
+  private static final String SCHEMA = "diku_mod_data_export_spring";
+  private static final int JOBS = 100;
+  private static final int UPDATES = 10_000;
+  private static final int UPDATES_PER_TRANSACTION = 100;
+
+  private static final String SEED_JOBS = """
+      INSERT INTO %s.job (id, name, type, export_type_specific_parameters, status, batch_status, created_date,
+                          updated_date, error_details)
+      SELECT gen_random_uuid(), lpad(i::text, 6, '0'), 'BULK_EDIT_QUERY',
+             jsonb_build_object('query', repeat('barcode==' || i || ' or ', 100)),
+             'IN_PROGRESS', 'STARTED', now(), now(), repeat('error ', 50)
+      FROM generate_series(1, %d) i""";
+
+  /** The progress write of JobExecutionUpdateRepository, with the table and its id column as placeholders. */
+  private static final String UPDATE_PROGRESS = "UPDATE %s.%s SET progress = cast(? as jsonb), update_sequence = ? "
+      + "WHERE %s = ? AND (update_sequence IS NULL OR update_sequence < ?) AND progress IS DISTINCT FROM cast(? as jsonb)";
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+  @Autowired
+  private DataSource dataSource;
+
+  @AfterEach
+  void dropWideTable() {
+    jdbcTemplate.execute("DROP TABLE IF EXISTS " + SCHEMA + ".job_wide");
+  }
+
+  @Test
+  void progressUpdatesWriteLessThanJobRowUpdates() throws SQLException {
+    jdbcTemplate.execute(SEED_JOBS.formatted(SCHEMA, JOBS));
+    // the former layout: the job table with all its indexes and the progress column
+    jdbcTemplate.execute("CREATE TABLE " + SCHEMA + ".job_wide (LIKE " + SCHEMA + ".job INCLUDING ALL)");
+    jdbcTemplate.execute("ALTER TABLE " + SCHEMA + ".job_wide ADD COLUMN progress jsonb");
+    jdbcTemplate.execute("INSERT INTO " + SCHEMA + ".job_wide SELECT *, NULL FROM " + SCHEMA + ".job");
+    // the first progress write of a job inserts its row, afterwards both layouts are updated in place
+    jdbcTemplate.execute("INSERT INTO " + SCHEMA + ".job_progress (job_id) SELECT id FROM " + SCHEMA + ".job");
+    var ids = jdbcTemplate.queryForList("SELECT id FROM " + SCHEMA + ".job", UUID.class);
+
+    try (Connection reader = dataSource.getConnection()) {
+      holdSnapshot(reader);
+      benchmark(ids);
+      reader.rollback();
+    }
+  }
+
+  private void benchmark(List<UUID> ids) {
+    var before = measure("job_wide", () -> updateProgress("job_wide", "id", ids));
+    var after = measure("job_progress", () -> updateProgress("job_progress", "job_id", ids));
+
+    log.info("{} progress updates of {} jobs, job row: {} WAL bytes, {} bytes table and index growth; "
+        + "job_progress: {} WAL bytes, {} bytes table and index growth", UPDATES, JOBS, before.getWalBytes(),
+      before.getSizeGrowth(), after.getWalBytes(), after.getSizeGrowth());
+    assertTrue(after.getWalBytes() < before.getWalBytes(),
+      "job_progress wrote " + after.getWalBytes() + " WAL bytes, the job row " + before.getWalBytes());
+    assertTrue(after.getSizeGrowth() < before.getSizeGrowth(),
+      "job_progress grew " + after.getSizeGrowth() + " bytes, the job row " + before.getSizeGrowth());
+  }
+
+  private void updateProgress(String table, String idColumn, List<UUID> ids) {
+    var sql = UPDATE_PROGRESS.formatted(SCHEMA, table, idColumn);
+    for (int start = 0; start < UPDATES; start += UPDATES_PER_TRANSACTION) {
+      List<Object[]> arguments = new ArrayList<>();
+      for (int i = start; i < start + UPDATES_PER_TRANSACTION; i++) {
+        var progress = toProgressJson(i);
+        arguments.add(new Object[] { progress, (long) i, ids.get(i % JOBS), (long) i, progress });
+      }
+      jdbcTemplate.batchUpdate(sql, arguments);
+    }
+  }
+
+  private static void holdSnapshot(Connection reader) throws SQLException {
+    reader.setAutoCommit(false);
+    reader.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+    try (var statement = reader.createStatement()) {
+      statement.execute("SELECT count(*) FROM " + SCHEMA + ".job");
+    }
+  }
+
+  private Measurement measure(String table, Runnable updates) {
+    var relation = SCHEMA + "." + table;
+    var size = jdbcTemplate.queryForObject("SELECT pg_total_relation_size(?::regclass)", Long.class, relation);
+    var lsn = jdbcTemplate.queryForObject("SELECT pg_current_wal_lsn()::text", String.class);
+    updates.run();
+    var walBytes = jdbcTemplate.queryForObject("SELECT pg_wal_lsn_diff(pg_current_wal_lsn(), ?::pg_lsn)::bigint",
+      Long.class, lsn);
+    var sizeGrowth = jdbcTemplate.queryForObject("SELECT pg_total_relation_size(?::regclass)", Long.class, relation) - size;
+    return new Measurement(walBytes, sizeGrowth);
+  }
+
+  private static String toProgressJson(int i) {
+    return String.format("{\"total\":%d,\"processed\":%d,\"progress\":%d}", UPDATES, i, i * 100 / UPDATES);
+  }
+
+  @Value
+  private static class Measurement {
+    long walBytes;
+    long sizeGrowth;
+  }
+}
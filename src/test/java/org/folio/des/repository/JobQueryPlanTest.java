@@ -0,0 +1,222 @@
+package org.folio.des.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import lombok.SneakyThrows;
+import org.folio.de.entity.Job;
+import org.folio.des.domain.TotalRecordsMode;
+import org.folio.des.repository.criteria.CqlCursor;
+import org.folio.des.support.BaseTest;
+import org.folio.des.support.CapturingStatementInspector;
+import org.folio.spring.DefaultFolioExecutionContext;
+import org.folio.spring.FolioModuleMetadata;
+import org.folio.spring.integration.XOkapiHeaders;
+import org.folio.spring.scope.FolioExecutionScopeExecutionContextManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Checks that the queries the module and the UI issue are served by indexes. The statements generated by Hibernate
+ * are explained against a job table seeded and analyzed once for the class, any sequential scan of the job table
+ * fails the test.
+ */
+@TestPropertySource(properties =
+  "spring.jpa.properties.hibernate.session_factory.statement_inspector=org.folio.des.support.CapturingStatementInspector")
+class JobQueryPlanTest extends BaseTest {
+
+  private static final String SCHEMA = "diku_mod_data_export_spring";
+  private static final String CONFIG_ID = "f18d8154-a02f-4414-9c52-c4f9083f1c32";
+  private static final String USER_ID = "1d3b58cb-07b5-5fcd-8a2a-3ce06a0eb90f";
+  private static final String CONFIG_DOCUMENT = "{\"vendorEdiOrdersExportConfig\":{\"exportConfigId\":\"" + CONFIG_ID + "\"}}";
+  private static final int LIMIT = 10;
+  private static final List<String> STATUS_SUMMARY_ATTRIBUTES = List.of("id", "status", "progress", "fileNames",
+    "dispatchStatus");
+
+  private static final String SEED_JOBS = """
+      INSERT INTO job (id, name, type, export_type_specific_parameters, status, created_date, created_by_user_id,
+                       updated_date, is_system_source)
+      SELECT gen_random_uuid(), lpad(i::text, 6, '0'),
+             ((ARRAY['CIRCULATION_LOG', 'BURSAR_FEES_FINES', 'EDIFACT_ORDERS_EXPORT', 'BULK_EDIT_QUERY', 'E_HOLDINGS'])[i % 5 + 1])::varchar,
+             jsonb_build_object('vendorEdiOrdersExportConfig', jsonb_build_object('exportConfigId', gen_random_uuid())),
+             ((ARRAY['SCHEDULED', 'IN_PROGRESS', 'SUCCESSFUL', 'FAILED'])[i % 4 + 1])::varchar,
+             now() - i * interval '1 minute',
+             CASE WHEN i % 3 = 0 THEN NULL ELSE gen_random_uuid() END,
+             now() - i * interval '1 minute', i % 3 = 0
+      FROM generate_series(1, 100000) i""";
+
+  @Autowired
+  private CQLService cqlService;
+  @Autowired
+  private JobDataExportRepository repository;
+  @Autowired
+  private FolioModuleMetadata folioModuleMetadata;
+  @Autowired
+  private DataSource dataSource;
+
+  @BeforeAll
+  @SneakyThrows
+  static void seedJobs(@Autowired DataSource dataSource) {
+    try (Connection connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+      statement.execute("SET search_path TO " + SCHEMA);
+      statement.execute(SEED_JOBS);
+      statement.execute("ANALYZE job");
+    }
+  }
+
+  @AfterAll
+  @SneakyThrows
+  static void deleteJobs(@Autowired DataSource dataSource) {
+    try (Connection connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+      statement.execute("DELETE FROM " + SCHEMA + ".job");
+    }
+  }
+
+  @BeforeEach
+  void beginContext() {
+    FolioExecutionScopeExecutionContextManager.beginFolioExecutionContext(
+      new DefaultFolioExecutionContext(folioModuleMetadata, Map.of(XOkapiHeaders.TENANT, List.of(TENANT))));
+    CapturingStatementInspector.drain();
+  }
+
+  @AfterEach
+  void endContext() {
+    FolioExecutionScopeExecutionContextManager.endFolioExecutionContext();
+  }
+
+  private static Stream<Arguments> cqlQueries() {
+    // the jobs before the middle of the seeded ones, by (createdDate, id) descending
+    var seekJob = new Job();
+    seekJob.setCreatedDate(Timestamp.from(Instant.now().minus(50000, ChronoUnit.MINUTES)));
+    seekJob.setId(UUID.randomUUID());
+    var seekCursor = CqlCursor.encode(List.of("createdDate", "id"), seekJob);
+    var ids = List.of(UUID.randomUUID().toString(), UUID.randomUUID().toString());
+    var idsQuery = "id==(" + String.join(" or ", ids) + ")";
+    var idsArray = "{" + String.join(",", ids) + "}";
+    // the changes of the last hour, the poll of a client that is up to date
+    var watermark = LocalDateTime.now().minusHours(1).toString();
+
+    return Stream.of(
+      Arguments.of("cql.allRecords=1 sortby createdDate/sort.descending", null, List.of(), List.of(LIMIT)),
+      Arguments.of("status==SCHEDULED sortby createdDate/sort.descending", null, List.of(), List.of("SCHEDULED", LIMIT)),
+      Arguments.of("type==BULK_EDIT_QUERY sortby createdDate/sort.descending", null, List.of(),
+        List.of("BULK_EDIT_QUERY", LIMIT)),
+      Arguments.of("createdByUserId==" + USER_ID + " sortby createdDate/sort.descending", null, List.of(),
+        List.of(USER_ID, LIMIT)),
+      Arguments.of(String.format(
+          "type==EDIFACT_ORDERS_EXPORT and jsonb.exportTypeSpecificParameters.vendorEdiOrdersExportConfig.exportConfigId==%s sortBy createdDate/sort.descending",
+          CONFIG_ID), null, List.of(),
+        List.of("EDIFACT_ORDERS_EXPORT", CONFIG_DOCUMENT, CONFIG_DOCUMENT, LIMIT)),
+      // keyset page after the cursor
+      Arguments.of("status==SCHEDULED sortby createdDate/sort.descending", seekCursor, List.of(),
+        List.of("SCHEDULED", seekJob.getCreatedDate().toString(), seekJob.getCreatedDate().toString(),
+          seekJob.getId().toString(), LIMIT)),
+      // id OR chain, bound as one array
+      Arguments.of(idsQuery, null, List.of(), List.of(idsArray, LIMIT)),
+      // /jobs/status projection
+      Arguments.of(idsQuery, null, STATUS_SUMMARY_ATTRIBUTES, List.of(idsArray, LIMIT)),
+      // first page of the job changes feed
+      Arguments.of("updatedDate>\"" + watermark + "\" sortby updatedDate/sort.ascending", "", List.of(),
+        List.of(watermark, LIMIT)));
+  }
+
+  @ParameterizedTest
+  @MethodSource("cqlQueries")
+  void shouldUseIndexForCqlQuery(String cql, String cursor, List<String> attributes, List<Object> parameters) {
+    if (cursor == null) {
+      cqlService.getByCQL(Job.class, cql, 0, LIMIT, attributes);
+    } else {
+      cqlService.getByCQLAfter(Job.class, cql, cursor, LIMIT, attributes);
+    }
+
+    assertIndexScan(capturedStatement(), parameters);
+  }
+
+  @Test
+  void shouldUseIndexForOldJobsLookup() {
+    var expirationDate = Timestamp.from(Instant.now().minus(68, ChronoUnit.DAYS));
+    repository.findByUpdatedDateBefore(expirationDate);
+
+    assertIndexScan(capturedStatement(), List.of(expirationDate.toString()));
+  }
+
+  @Test
+  void shouldEstimateFilteredCountFromPlan() {
+    var estimate = cqlService.countByCQL(Job.class, "status==SCHEDULED", TotalRecordsMode.ESTIMATED);
+
+    // a quarter of the seeded jobs is scheduled
+    assertTrue(estimate > 20000 && estimate < 30000, () -> "Unexpected estimate " + estimate);
+  }
+
+  private static String capturedStatement() {
+    var statements = CapturingStatementInspector.drain();
+    assertEquals(1, statements.size(), () -> "Expected one statement: " + statements);
+    return statements.get(0);
+  }
+
+  @SneakyThrows
+  private void assertIndexScan(String sql, List<Object> parameters) {
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      try (var statement = connection.createStatement()) {
+        statement.execute("SET LOCAL search_path TO " + SCHEMA);
+        var resultSet = statement.executeQuery("EXPLAIN (FORMAT JSON) " + inline(sql, parameters));
+        resultSet.next();
+        var plan = OBJECT_MAPPER.readTree(resultSet.getString(1)).get(0).get("Plan");
+
+        List<JsonNode> jobScans = new ArrayList<>();
+        collectJobScans(plan, jobScans);
+        assertFalse(jobScans.isEmpty(), () -> "No job scan in " + plan);
+        assertTrue(jobScans.stream().noneMatch(scan -> "Seq Scan".equals(scan.get("Node Type").asText())),
+          () -> "Sequential scan of job for " + sql + ": " + plan.toPrettyString());
+      } finally {
+        connection.rollback();
+      }
+    }
+  }
+
+  private static void collectJobScans(JsonNode plan, List<JsonNode> jobScans) {
+    if (plan.has("Relation Name") && "job".equals(plan.get("Relation Name").asText())) {
+      jobScans.add(plan);
+    }
+    if (plan.has("Plans")) {
+      plan.get("Plans").forEach(child -> collectJobScans(child, jobScans));
+    }
+  }
+
+  private static String inline(String sql, List<Object> parameters) {
+    var inlined = new StringBuilder();
+    int parameter = 0;
+    for (char c : sql.toCharArray()) {
+      if (c == '?') {
+        var value = parameters.get(parameter++);
+        inlined.append(value instanceof Number ? value.toString() : "'" + value.toString().replace("'", "''") + "'");
+      } else {
+        inlined.append(c);
+      }
+    }
+    assertEquals(parameters.size(), parameter, () -> "Parameter count mismatch: " + sql);
+    return inlined.toString();
+  }
+}
@@ -0,0 +1,71 @@
+package org.folio.des.repository.criteria;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.z3950.zing.cql.CQLTermNode;
+
+class CQL2JPACriteriaTest {
+
+  @Test
+  @SneakyThrows
+  void shouldIgnoreTermValuesInShape() {
+    var first = CQL2JPACriteria.toShape(CQL2JPACriteria.parse("(status==SUCCESSFUL and type==CIRCULATION_LOG) sortby name/sort.descending"));
+    var second = CQL2JPACriteria.toShape(CQL2JPACriteria.parse("(status==FAILED and type==E_HOLDINGS) sortby name/sort.descending"));
+
+    assertEquals(first, second);
+  }
+
+  @Test
+  @SneakyThrows
+  void shouldDistinguishShapesByFieldsRelationsAndSort() {
+    var shape = CQL2JPACriteria.toShape(CQL2JPACriteria.parse("status==SUCCESSFUL sortby name"));
+
+    assertNotEquals(shape, CQL2JPACriteria.toShape(CQL2JPACriteria.parse("type==SUCCESSFUL sortby name")));
+    assertNotEquals(shape, CQL2JPACriteria.toShape(CQL2JPACriteria.parse("status<>SUCCESSFUL sortby name")));
+    assertNotEquals(shape, CQL2JPACriteria.toShape(CQL2JPACriteria.parse("status==SUCCESSFUL sortby name/sort.descending")));
+    assertNotEquals(shape, CQL2JPACriteria.toShape(CQL2JPACriteria.parse("status==* sortby name")));
+  }
+
+  @Test
+  @SneakyThrows
+  void shouldCollectTermsInDepthFirstOrder() {
+    var terms = CQL2JPACriteria.collectTerms(CQL2JPACriteria.parse("(name==a or (source==b and description==c)) sortby name"));
+
+    assertEquals(List.of("a", "b", "c"), terms.stream().map(CQLTermNode::getTerm).toList());
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {10, 100, 1000})
+  @SneakyThrows
+  void shouldCollapseEqualityChainIntoOneInList(int size) {
+    var ids = IntStream.range(0, size).mapToObj(i -> new UUID(0, i).toString()).toList();
+    var node = CQL2JPACriteria.parse("id==(" + String.join(" or ", ids) + ") and status==SUCCESSFUL");
+
+    assertEquals("(id in ? CQLAndNode status == ?)", CQL2JPACriteria.toShape(node));
+    assertEquals(List.of(ids, "SUCCESSFUL"), CQL2JPACriteria.collectValues(node));
+  }
+
+  @Test
+  @SneakyThrows
+  void shouldNotCollapseMixedFieldsOrPatterns() {
+    assertEquals("(status == ? CQLOrNode type == ?)",
+      CQL2JPACriteria.toShape(CQL2JPACriteria.parse("status==SUCCESSFUL or type==SUCCESSFUL")));
+    assertEquals("(name == ? CQLOrNode name == ?)",
+      CQL2JPACriteria.toShape(CQL2JPACriteria.parse("name==a* or name==b")));
+    assertEquals("(name in ? CQLOrNode status <> ?)",
+      CQL2JPACriteria.toShape(CQL2JPACriteria.parse("name==a or name==b or status<>FAILED")));
+  }
+
+  @Test
+  void shouldEscapeArrayLiteral() {
+    assertEquals("{\"a\",\"b\\\"c\",\"d,e\"}", CqlInLists.toArrayLiteral(List.of("a", "b\"c", "d,e")));
+  }
+}
@@ -0,0 +1,72 @@
+package org.folio.des.repository.criteria;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.folio.cql2pgjson.exception.QueryValidationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.z3950.zing.cql.CQLNode;
+
+/**
+ * Measures the CQL side of the translation of OR chains of 10 to 1000 terms: the rewrite into an IN list, the shape
+ * the query template is cached by and the values bound to it. The baseline chain has wildcard terms, which are not
+ * collapsed, so it is translated term by term as before. Not run by the build, start it with
+ * {@code mvn test-compile exec:java -Dexec.mainClass=org.folio.des.repository.criteria.CqlInListsBenchmark
+ * -Dexec.classpathScope=test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CqlInListsBenchmark {
+
+  @Param({"10", "100", "1000"})
+  public int terms;
+
+  private CQLNode inList;
+  private CQLNode orChain;
+
+  @Setup
+  public void parse() throws QueryValidationException {
+    var ids = IntStream.range(0, terms).mapToObj(i -> new UUID(0, i).toString()).toList();
+    inList = CQL2JPACriteria.parse("id==(" + String.join(" or ", ids) + ") and status==SUCCESSFUL");
+    orChain = CQL2JPACriteria.parse("name==(" + String.join("* or ", ids) + "*) and status==SUCCESSFUL");
+  }
+
+  @Benchmark
+  public void inList(Blackhole blackhole) throws QueryValidationException {
+    translate(inList, blackhole);
+  }
+
+  @Benchmark
+  public void orChain(Blackhole blackhole) throws QueryValidationException {
+    translate(orChain, blackhole);
+  }
+
+  private static void translate(CQLNode node, Blackhole blackhole) throws QueryValidationException {
+    blackhole.consume(CQL2JPACriteria.toShape(node));
+    List<Object> values = CQL2JPACriteria.collectValues(node);
+    blackhole.consume(values);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(CqlInListsBenchmark.class.getSimpleName()).build()).run();
+  }
+}
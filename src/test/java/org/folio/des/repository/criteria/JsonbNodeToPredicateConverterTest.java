@@ -0,0 +1,40 @@
+package org.folio.des.repository.criteria;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class JsonbNodeToPredicateConverterTest {
+
+  @Test
+  void shouldBuildContainmentDocumentOfAnyDepth() {
+    var fieldNames = JsonbNodeToPredicateConverter.getFieldNames("jsonb.exportTypeSpecificParameters.vendorEdiOrdersExportConfig.ediSchedule.scheduleParameters.schedulePeriod");
+
+    assertEquals(List.of("exportTypeSpecificParameters", "vendorEdiOrdersExportConfig", "ediSchedule", "scheduleParameters", "schedulePeriod"), fieldNames);
+    assertEquals("{\"vendorEdiOrdersExportConfig\":{\"ediSchedule\":{\"scheduleParameters\":{\"schedulePeriod\":\"DAY\"}}}}",
+      JsonbNodeToPredicateConverter.toContainmentDocument(fieldNames, "DAY", false));
+  }
+
+  @Test
+  void shouldEscapeTermInContainmentDocument() {
+    assertEquals("{\"name\":\"a\\\"b\"}",
+      JsonbNodeToPredicateConverter.toContainmentDocument(List.of("exportTypeSpecificParameters", "name"), "a\"b", true));
+  }
+
+  @Test
+  void shouldWriteNumberAndBooleanTermsAsTypedLeaf() {
+    var fieldNames = List.of("exportTypeSpecificParameters", "config", "value");
+
+    assertEquals("{\"config\":{\"value\":-2.5}}", JsonbNodeToPredicateConverter.toContainmentDocument(fieldNames, "-2.5", true));
+    assertEquals("{\"config\":{\"value\":false}}", JsonbNodeToPredicateConverter.toContainmentDocument(fieldNames, "false", true));
+    assertEquals("{\"config\":{\"value\":\"007\"}}", JsonbNodeToPredicateConverter.toContainmentDocument(fieldNames, "007", true));
+    assertEquals("{\"config\":{\"value\":\"1.50\"}}", JsonbNodeToPredicateConverter.toContainmentDocument(fieldNames, "1.50", false));
+  }
+
+  @Test
+  void shouldRejectPathWithoutColumn() {
+    assertThrows(IllegalArgumentException.class, () -> JsonbNodeToPredicateConverter.getFieldNames("jsonb"));
+  }
+}
@@ -14,9 +14,12 @@ import org.folio.des.domain.dto.Metadata;
 import org.folio.des.domain.dto.ScheduleParameters;
 import org.folio.des.domain.dto.VendorEdiOrdersExportConfig;
 import org.folio.des.repository.JobDataExportRepository;
+import org.folio.des.repository.JobIdempotencyKeyRepository;
+import org.folio.des.repository.JobTombstoneRepository;
 import org.folio.des.security.AuthService;
 import org.folio.des.security.SecurityManagerService;
 import org.folio.des.service.JobExecutionService;
+import org.folio.des.service.JobResultReuseService;
 import org.folio.des.service.config.ExportConfigService;
 import org.folio.des.service.config.impl.ExportConfigServiceResolver;
 import org.folio.des.service.impl.JobServiceImpl;
@@ -60,6 +63,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.scheduling.support.SimpleTriggerContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import static org.testcontainers.shaded.org.awaitility.Awaitility.await;
 
 @SpringBootTest(classes = {ExportTrigger.class})
@@ -311,7 +316,8 @@ class ExportTriggerTest {
     okapiHeaders.put(XOkapiHeaders.TENANT, List.of("diku"));
     var folioExecutionContext = new DefaultFolioExecutionContext(folioModuleMetadata, okapiHeaders);
     var jobExecutionService = new JobExecutionService(kafka, exportConfigValidatorResolver, jobCommandBuilderResolver, defaultModelConfigToExportConfigConverter, client, objectMapper);
-    var jobService = new JobServiceImpl(exportWorkerClient, jobExecutionService, repository, folioExecutionContext, null, null, client);
+    var jobService = new JobServiceImpl(exportWorkerClient, jobExecutionService, repository, mock(JobTombstoneRepository.class), mock(JobIdempotencyKeyRepository.class), folioExecutionContext, null, null, client,
+      new TransactionTemplate(mock(PlatformTransactionManager.class)), mock(JobResultReuseService.class));
     var folioExecutionContextHelper =
       new FolioExecutionContextHelper(folioModuleMetadata, folioExecutionContext, authService, securityManagerService);
     folioExecutionContextHelper.registerTenant();
@@ -340,7 +346,8 @@ class ExportTriggerTest {
     okapiHeaders.put(XOkapiHeaders.TENANT, List.of("diku"));
     var folioExecutionContext = new DefaultFolioExecutionContext(folioModuleMetadata, okapiHeaders);
     var jobExecutionService = new JobExecutionService(kafka, exportConfigValidatorResolver, jobCommandBuilderResolver, defaultModelConfigToExportConfigConverter, client, objectMapper);
-    var jobService = new JobServiceImpl(exportWorkerClient, jobExecutionService, repository, folioExecutionContext, null, null, client);
+    var jobService = new JobServiceImpl(exportWorkerClient, jobExecutionService, repository, mock(JobTombstoneRepository.class), mock(JobIdempotencyKeyRepository.class), folioExecutionContext, null, null, client,
+      new TransactionTemplate(mock(PlatformTransactionManager.class)), mock(JobResultReuseService.class));
     var config = new ExportConfig();
     ExportTypeSpecificParameters exportTypeSpecificParameters = new ExportTypeSpecificParameters();
     VendorEdiOrdersExportConfig vendorEdiOrdersExportConfig= new VendorEdiOrdersExportConfig();
@@ -0,0 +1,31 @@
+package org.folio.des.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Base64;
+import org.junit.jupiter.api.Test;
+
+class TokenCipherTest {
+
+  private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+  private static final String TOKEN = "eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiJkaWt1X2FkbWluIn0.signature";
+
+  @Test
+  void shouldDecryptWithSharedKey() {
+    var encrypted = new TokenCipher(KEY).encrypt(TOKEN);
+
+    assertNotEquals(TOKEN, encrypted);
+    assertNotEquals(encrypted, new TokenCipher(KEY).encrypt(TOKEN));
+    assertEquals(TOKEN, new TokenCipher(KEY).decrypt(encrypted));
+  }
+
+  @Test
+  void shouldNotDecryptWithOtherKey() {
+    var encrypted = new TokenCipher("").encrypt(TOKEN);
+
+    assertThrows(IllegalStateException.class, () -> new TokenCipher("").decrypt(encrypted));
+    assertThrows(IllegalStateException.class, () -> new TokenCipher(KEY).decrypt(encrypted));
+  }
+}
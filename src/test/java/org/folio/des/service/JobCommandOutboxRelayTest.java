@@ -0,0 +1,170 @@
+package org.folio.des.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.testcontainers.shaded.org.awaitility.Awaitility.await;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.folio.de.entity.Job;
+import org.folio.de.entity.JobCommandOutboxMessage;
+import org.folio.des.config.kafka.KafkaService;
+import org.folio.des.domain.dto.ExportType;
+import org.folio.des.domain.dto.ExportTypeSpecificParameters;
+import org.folio.des.domain.dto.JobDispatchStatus;
+import org.folio.des.domain.dto.JobStatus;
+import org.folio.des.repository.JobCommandOutboxRepository;
+import org.folio.des.repository.JobDataExportRepository;
+import org.folio.des.security.TokenCipher;
+import org.folio.des.support.BaseTest;
+import org.folio.spring.DefaultFolioExecutionContext;
+import org.folio.spring.FolioModuleMetadata;
+import org.folio.spring.integration.XOkapiHeaders;
+import org.folio.spring.scope.FolioExecutionScopeExecutionContextManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@TestPropertySource(properties = { "application.job-command-outbox.send-timeout=3s",
+  "application.job-command-outbox.poll-interval=200ms", "application.job-command-outbox.max-attempts=2" })
+@Sql(executionPhase = ExecutionPhase.AFTER_TEST_METHOD, scripts = "classpath:clearDb.sql")
+class JobCommandOutboxRelayTest extends BaseTest {
+
+  private static final String TOPIC = "folio.diku.data-export.job.command.relay-test";
+
+  @SpyBean(name = "outboxKafkaTemplate")
+  private KafkaTemplate<String, byte[]> outboxKafkaTemplate;
+  @Autowired
+  private JobCommandOutboxRepository outboxRepository;
+  @Autowired
+  private FolioModuleMetadata folioModuleMetadata;
+  @Autowired
+  private EmbeddedKafkaBroker embeddedKafkaBroker;
+  @Autowired
+  private KafkaService kafkaService;
+  @Autowired
+  private JobDataExportRepository jobRepository;
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+  @Autowired
+  private TokenCipher tokenCipher;
+
+  @BeforeEach
+  void beginContext() {
+    FolioExecutionScopeExecutionContextManager.beginFolioExecutionContext(
+      new DefaultFolioExecutionContext(folioModuleMetadata, Map.of(XOkapiHeaders.TENANT, List.of(TENANT))));
+  }
+
+  @AfterEach
+  void endContext() {
+    FolioExecutionScopeExecutionContextManager.endFolioExecutionContext();
+  }
+
+  @Test
+  void resendRecordAfterTimeout() {
+    embeddedKafkaBroker.addTopics(TOPIC);
+    // the first send is never acknowledged, the relay gives up on it after the send timeout and sends it again
+    doReturn(new CompletableFuture<>()).doCallRealMethod().when(outboxKafkaTemplate).send(any(ProducerRecord.class));
+    var payload = "{\"id\":\"relay-test\"}".getBytes(StandardCharsets.UTF_8);
+
+    try (Consumer<String, byte[]> consumer = createConsumer()) {
+      embeddedKafkaBroker.consumeFromAnEmbeddedTopic(consumer, TOPIC);
+      var message = outboxRepository.save(newMessage(payload));
+
+      var consumed = KafkaTestUtils.getSingleRecord(consumer, TOPIC, Duration.ofSeconds(30));
+
+      assertEquals("job-a", consumed.key());
+      assertArrayEquals(payload, consumed.value());
+      // the record is sent with the token of the request that wrote it
+      assertEquals(TOKEN, new String(consumed.headers().lastHeader(XOkapiHeaders.TOKEN).value(), StandardCharsets.UTF_8));
+      await().atMost(10, TimeUnit.SECONDS).until(() -> !outboxRepository.existsById(message.getId()));
+      verify(outboxKafkaTemplate, times(2)).send(any(ProducerRecord.class));
+    }
+  }
+
+  @Test
+  void keepResentJobWhenCommandIsAbandoned() {
+    doReturn(CompletableFuture.failedFuture(new IllegalStateException("Broker down")))
+      .when(outboxKafkaTemplate).send(any(ProducerRecord.class));
+    var job = new Job();
+    job.setType(ExportType.CIRCULATION_LOG);
+    job.setExportTypeSpecificParameters(new ExportTypeSpecificParameters());
+    job.setStatus(JobStatus.SUCCESSFUL);
+    job.setCreatedDate(new Date());
+    job = jobRepository.save(job);
+    var message = newMessage("{}".getBytes(StandardCharsets.UTF_8));
+    message.setJobId(job.getId());
+    message.setAttempts(1);
+    outboxRepository.save(message);
+
+    await().atMost(10, TimeUnit.SECONDS)
+      .until(() -> jobRepository.findById(message.getJobId()).orElseThrow().getDispatchStatus() == JobDispatchStatus.FAILED);
+
+    // the error of the resend is no error of the job
+    var resent = jobRepository.findById(message.getJobId()).orElseThrow();
+    assertEquals(JobStatus.SUCCESSFUL, resent.getStatus());
+    assertNull(resent.getErrorDetails());
+    assertFalse(outboxRepository.existsById(message.getId()));
+  }
+
+  @Test
+  void keepTokenEncryptedInOutbox() {
+    FolioExecutionScopeExecutionContextManager.beginFolioExecutionContext(new DefaultFolioExecutionContext(
+      folioModuleMetadata, Map.of(XOkapiHeaders.TENANT, List.of(TENANT), XOkapiHeaders.TOKEN, List.of(TOKEN))));
+    // not committed, so the relay does not send the record
+    transactionTemplate.executeWithoutResult(status -> {
+      kafkaService.sendViaOutbox(KafkaService.Topic.JOB_COMMAND, "job-a", Map.of("id", "job-a"));
+
+      var message = outboxRepository.findAll().get(0);
+
+      assertEquals(TENANT, message.getHeaders().get(XOkapiHeaders.TENANT));
+      assertNull(message.getHeaders().get(XOkapiHeaders.TOKEN));
+      assertNotEquals(TOKEN, message.getEncryptedToken());
+      assertEquals(TOKEN, tokenCipher.decrypt(message.getEncryptedToken()));
+      status.setRollbackOnly();
+    });
+  }
+
+  private Consumer<String, byte[]> createConsumer() {
+    Map<String, Object> props = KafkaTestUtils.consumerProps("relay-test", "false", embeddedKafkaBroker);
+    return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new ByteArrayDeserializer())
+      .createConsumer();
+  }
+
+  private JobCommandOutboxMessage newMessage(byte[] payload) {
+    var message = new JobCommandOutboxMessage();
+    message.setTopic(TOPIC);
+    message.setMessageKey("job-a");
+    message.setPayload(payload);
+    message.setHeaders(Map.of(XOkapiHeaders.TENANT, TENANT, XOkapiHeaders.URL, wireMockServer.baseUrl()));
+    message.setEncryptedToken(tokenCipher.encrypt(TOKEN));
+    message.setCreatedDate(new Date());
+    return message;
+  }
+}
@@ -0,0 +1,72 @@
+package org.folio.des.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.folio.de.entity.Job;
+import org.folio.de.entity.JobCommand;
+import org.folio.des.domain.dto.JobStatus;
+import org.folio.des.repository.JobDataExportRepository;
+import org.folio.spring.FolioModuleMetadata;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class JobFollowerReleaseServiceTest {
+
+  private final JobDataExportRepository repository = mock(JobDataExportRepository.class);
+  private final JobExecutionService jobExecutionService = mock(JobExecutionService.class);
+  private final JobEventsService jobEventsService = mock(JobEventsService.class);
+  private final JobCommandOutboxRelay outboxRelay = mock(JobCommandOutboxRelay.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final JobFollowerReleaseService service = new JobFollowerReleaseService(repository, jobExecutionService,
+    jobEventsService, outboxRelay, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+    mock(FolioModuleMetadata.class), Duration.ofHours(1), meterRegistry);
+
+  @Test
+  void shouldStartFollowerOfStuckLeaderOnItsOwn() {
+    var follower = new Job();
+    follower.setId(UUID.randomUUID());
+    follower.setLeaderJobId(UUID.randomUUID());
+    follower.setStatus(JobStatus.IN_PROGRESS);
+    var command = new JobCommand();
+    when(outboxRelay.getTenants()).thenReturn(List.of("diku"));
+    when(repository.findFollowersCreatedBefore(any(), any())).thenReturn(List.of(follower));
+    when(jobExecutionService.prepareStartJobCommand(follower)).thenReturn(command);
+    var waitStart = System.currentTimeMillis() - Duration.ofHours(1).toMillis();
+
+    service.releaseStaleFollowers();
+
+    // followers created within the wait are left waiting
+    verify(repository).findFollowersCreatedBefore(argThat(date -> date.getTime() >= waitStart), any());
+    verify(repository).releaseFollowers(eq(List.of(follower.getId())), any(Date.class));
+    verify(jobExecutionService).sendJobCommand(command);
+    verify(jobEventsService).publish(follower);
+    assertNull(follower.getLeaderJobId());
+    assertEquals(JobStatus.SCHEDULED, follower.getStatus());
+    assertEquals(1, meterRegistry.get("job.single-flight.released").counter().count());
+  }
+
+  @Test
+  void shouldKeepWaitingWithoutStaleFollowers() {
+    when(outboxRelay.getTenants()).thenReturn(List.of("diku"));
+    when(repository.findFollowersCreatedBefore(any(), any())).thenReturn(List.of());
+
+    service.releaseStaleFollowers();
+
+    verify(repository, never()).releaseFollowers(any(), any());
+    verify(jobExecutionService, never()).sendJobCommand(any());
+  }
+}
@@ -0,0 +1,107 @@
+package org.folio.des.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.folio.de.entity.Job;
+import org.folio.des.domain.dto.EntityType;
+import org.folio.des.domain.dto.ExportType;
+import org.folio.des.domain.dto.ExportTypeSpecificParameters;
+import org.folio.des.domain.dto.JobStatus;
+import org.folio.des.repository.JobDataExportRepository;
+import org.junit.jupiter.api.Test;
+
+class JobResultReuseServiceTest {
+
+  private final JobDataExportRepository repository = mock(JobDataExportRepository.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final JobResultReuseService service = new JobResultReuseService(repository, new ObjectMapper(),
+    Duration.ofMinutes(10), true, Duration.ofHours(1), meterRegistry);
+
+  @Test
+  void shouldHashEqualParametersEqually() {
+    var first = job(ExportType.BULK_EDIT_QUERY, "barcode==1");
+    first.setName("000001");
+    var second = job(ExportType.BULK_EDIT_QUERY, "barcode==1");
+    second.setName("000002");
+
+    assertNotNull(service.hashParameters(first));
+    assertEquals(service.hashParameters(first), service.hashParameters(second));
+    assertNotEquals(service.hashParameters(first), service.hashParameters(job(ExportType.BULK_EDIT_QUERY, "barcode==2")));
+    assertNull(service.hashParameters(job(ExportType.BURSAR_FEES_FINES, "barcode==1")));
+  }
+
+  @Test
+  void shouldReuseFilesOfSuccessfulJob() {
+    var result = job(ExportType.BULK_EDIT_QUERY, "barcode==1");
+    result.setId(UUID.randomUUID());
+    result.setStatus(JobStatus.SUCCESSFUL);
+    result.setFileNames(List.of("result.csv"));
+    result.setEndTime(new Date());
+    var job = job(ExportType.BULK_EDIT_QUERY, "barcode==1");
+    job.setParametersHash(service.hashParameters(job));
+    when(repository.findSuccessfulByParametersHash(eq(job.getParametersHash()), any(), any()))
+      .thenReturn(List.of(result))
+      .thenReturn(List.of());
+
+    var reusable = service.findReusableResult(job);
+    assertTrue(reusable.isPresent());
+    service.applyResult(job, reusable.get());
+    assertTrue(service.findReusableResult(job).isEmpty());
+
+    assertEquals(JobStatus.SUCCESSFUL, job.getStatus());
+    assertEquals(List.of("result.csv"), job.getFileNames());
+    assertEquals(result.getEndTime(), job.getEndTime());
+    assertEquals(1, meterRegistry.get("job.results.reuse.hits").counter().count());
+    assertEquals(1, meterRegistry.get("job.results.reuse.misses").counter().count());
+    assertEquals(1, meterRegistry.get("job.results.reuse.applied").counter().count());
+  }
+
+  @Test
+  void shouldFollowInFlightJobWithSameParameters() {
+    var leader = job(ExportType.CIRCULATION_LOG, "userId==1");
+    leader.setId(UUID.randomUUID());
+    leader.setStatus(JobStatus.IN_PROGRESS);
+    var job = job(ExportType.CIRCULATION_LOG, "userId==1");
+    job.setParametersHash(service.hashParameters(job));
+    when(repository.findInFlightByParametersHash(eq(job.getParametersHash()), any(), any())).thenReturn(List.of(leader));
+
+    var inFlight = service.findInFlightLeader(job);
+    assertTrue(inFlight.isPresent());
+    service.follow(job, inFlight.get());
+
+    assertEquals(leader.getId(), job.getLeaderJobId());
+    assertEquals(JobStatus.IN_PROGRESS, job.getStatus());
+    verify(repository).lockParametersHash(job.getParametersHash());
+    assertEquals(1, meterRegistry.get("job.single-flight.followers").counter().count());
+
+    var unhashed = job(ExportType.BURSAR_FEES_FINES, "userId==1");
+    assertTrue(service.findInFlightLeader(unhashed).isEmpty());
+    verify(repository, never()).lockParametersHash(null);
+  }
+
+  private static Job job(ExportType type, String query) {
+    var parameters = new ExportTypeSpecificParameters();
+    parameters.setQuery(query);
+    var job = new Job();
+    job.setType(type);
+    job.setEntityType(EntityType.USER);
+    job.setExportTypeSpecificParameters(parameters);
+    return job;
+  }
+}
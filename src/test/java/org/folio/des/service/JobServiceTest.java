@@ -2,6 +2,11 @@ package org.folio.des.service;
 
 import static org.junit.Assert.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -14,6 +19,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Stream;
 
@@ -21,6 +27,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.SneakyThrows;
 import org.folio.de.entity.Job;
 import org.folio.de.entity.JobCommand;
+import org.folio.de.entity.JobIdempotencyKey;
 import org.folio.des.builder.job.JobCommandBuilderResolver;
 import org.folio.des.client.ConfigurationClient;
 import org.folio.des.client.ExportWorkerClient;
@@ -30,12 +37,17 @@ import org.folio.des.domain.dto.EdiFtp;
 import org.folio.des.domain.dto.ExportConfig;
 import org.folio.des.domain.dto.ExportType;
 import org.folio.des.domain.dto.ExportTypeSpecificParameters;
+import org.folio.des.domain.dto.JobBatchItemStatus;
 import org.folio.des.domain.dto.VendorEdiOrdersExportConfig;
+import org.folio.des.exceptions.IdempotencyKeyReuseException;
 import org.folio.des.repository.JobDataExportRepository;
+import org.folio.des.repository.JobIdempotencyKeyRepository;
+import org.folio.des.repository.JobTombstoneRepository;
 import org.folio.des.service.config.BulkEditConfigService;
 import org.folio.des.service.impl.JobServiceImpl;
 import org.folio.des.validator.ExportConfigValidatorResolver;
 import org.folio.spring.DefaultFolioExecutionContext;
+import org.folio.spring.FolioExecutionContext;
 import org.folio.spring.FolioModuleMetadata;
 import org.folio.spring.exception.NotFoundException;
 import org.folio.spring.integration.XOkapiHeaders;
@@ -44,9 +56,12 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.batch.BatchAutoConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @SpringBootTest
 @EnableAutoConfiguration(exclude = BatchAutoConfiguration.class)
@@ -59,6 +74,10 @@ class JobServiceTest {
   @Mock
   private JobDataExportRepository repository;
   @Mock
+  private JobTombstoneRepository tombstoneRepository;
+  @Mock
+  private JobIdempotencyKeyRepository idempotencyKeyRepository;
+  @Mock
   private JobExecutionService jobExecutionService;
   @Mock
   private BulkEditConfigService configService;
@@ -78,6 +97,12 @@ class JobServiceTest {
   private KafkaService kafka;
   @Mock
   private ObjectMapper objectMapper;
+  @Mock
+  private FolioExecutionContext context;
+  @Mock
+  private JobResultReuseService resultReuseService;
+  @Spy
+  private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
 
   @Test
   void shouldCollectExpiredJobs() {
@@ -93,7 +118,121 @@ class JobServiceTest {
 
     verify(repository).findByUpdatedDateBefore(jobsExpirationDate);
     verify(repository).findByUpdatedDateBefore(bulkEditExpirationDate);
-    verify(jobExecutionService).deleteJobs(expiredJobs);
+    verify(jobExecutionService).deleteJobs(expiredJobs, Set.of());
+    verify(tombstoneRepository).saveAll(argThat(tombstones -> ((Collection<?>) tombstones).size() == expiredJobs.size()));
+    verify(tombstoneRepository).deleteByDeletedDateBefore(getExpiredDate(30));
+    verify(idempotencyKeyRepository).deleteByCreatedDateBefore(any());
+  }
+
+  @Test
+  void shouldKeepFilesOfExpiredJobReusedByOtherJob() {
+    var source = new Job();
+    source.setId(UUID.randomUUID());
+    source.setType(ExportType.CIRCULATION_LOG);
+    source.setFiles(List.of("shared.csv", "own.csv"));
+    when(repository.findByUpdatedDateBefore(any())).thenReturn(new ArrayList<>(List.of(source)), new ArrayList<>());
+    when(configService.getBulkEditJobExpirationPeriod()).thenReturn(DEFAULT_BULK_EDIT_JOB_EXPIRATION_PERIOD);
+    // the job that reused the result of the source job expires later
+    when(repository.findReferencedFiles(any())).thenReturn(List.of("shared.csv"));
+
+    jobService.deleteOldJobs();
+
+    verify(repository).findReferencedFiles(List.of("shared.csv", "own.csv"));
+    verify(jobExecutionService).deleteJobs(List.of(source), Set.of("shared.csv"));
+  }
+
+  @Test
+  void shouldReturnJobSubmittedWithIdempotencyKey() {
+    var submitted = new Job();
+    submitted.setId(UUID.randomUUID());
+    submitted.setName("000042");
+    submitted.setType(ExportType.BURSAR_FEES_FINES);
+    when(resultReuseService.hashRequest(any())).thenReturn("hash");
+    when(idempotencyKeyRepository.findJobByKey(eq("key"), eq("hash"), any())).thenReturn(Optional.of(submitted));
+
+    var jobDto = new org.folio.des.domain.dto.Job();
+    jobDto.setType(ExportType.BURSAR_FEES_FINES);
+    var job = jobService.submitJob(jobDto, "key", false).getJob();
+
+    Assertions.assertEquals(submitted.getId(), job.getId());
+    Assertions.assertEquals("000042", job.getName());
+    verify(idempotencyKeyRepository, never()).claim(any(), any(), any(), any());
+    verify(repository, never()).getNextJobNumber();
+    verify(repository, never()).save(any());
+    verify(jobExecutionService, never()).sendJobCommand(any());
+  }
+
+  @Test
+  void shouldRejectOtherJobWithUsedIdempotencyKey() {
+    var key = new JobIdempotencyKey();
+    key.setIdempotencyKey("key");
+    key.setRequestHash("hash of the first job");
+    when(resultReuseService.hashRequest(any())).thenReturn("hash of another job");
+    when(idempotencyKeyRepository.findById("key")).thenReturn(Optional.of(key));
+
+    var jobDto = new org.folio.des.domain.dto.Job();
+    jobDto.setType(ExportType.CIRCULATION_LOG);
+    jobDto.setExportTypeSpecificParameters(new ExportTypeSpecificParameters());
+
+    assertThrows(IdempotencyKeyReuseException.class, () -> jobService.submitJob(jobDto, "key", false));
+    verify(repository, never()).save(any());
+    verify(jobExecutionService, never()).sendJobCommand(any());
+  }
+
+  @Test
+  void shouldNotStartJobFollowingInFlightJob() {
+    var leader = new Job();
+    leader.setId(UUID.randomUUID());
+    when(resultReuseService.findInFlightLeader(any())).thenReturn(Optional.of(leader));
+    doAnswer(invocation -> {
+      invocation.<Job>getArgument(0).setLeaderJobId(leader.getId());
+      return null;
+    }).when(resultReuseService).follow(any(), eq(leader));
+    when(repository.getNextJobNumber()).thenReturn(8);
+    when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+    var jobDto = new org.folio.des.domain.dto.Job();
+    jobDto.setType(ExportType.CIRCULATION_LOG);
+    jobDto.setExportTypeSpecificParameters(new ExportTypeSpecificParameters());
+    var submission = jobService.submitJob(jobDto, null, false);
+
+    Assertions.assertEquals("000008", submission.getJob().getName());
+    verify(repository).save(argThat(job -> leader.getId().equals(job.getLeaderJobId())));
+    verify(jobExecutionService, never()).prepareStartJobCommand(any());
+    verify(jobExecutionService, never()).sendJobCommand(any());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldSubmitValidJobsOfBatch() {
+    var valid = new org.folio.des.domain.dto.Job();
+    valid.setType(ExportType.CIRCULATION_LOG);
+    valid.setExportTypeSpecificParameters(new ExportTypeSpecificParameters());
+    var invalid = new org.folio.des.domain.dto.Job();
+    invalid.setType(ExportType.CIRCULATION_LOG);
+    var jobId = UUID.randomUUID();
+    when(repository.getNextJobNumbers(1)).thenReturn(List.of(7));
+    when(repository.saveAll(any())).thenAnswer(invocation -> {
+      Iterable<Job> jobs = invocation.getArgument(0);
+      jobs.forEach(job -> job.setId(jobId));
+      return jobs;
+    });
+    when(jobExecutionService.prepareStartJobCommand(any())).thenAnswer(invocation -> new JobCommand());
+
+    var result = jobService.submitJobs(List.of(valid, invalid), job -> job == invalid);
+
+    Assertions.assertEquals(2, result.getTotalRecords());
+    var created = result.getJobResults().get(0);
+    Assertions.assertEquals(JobBatchItemStatus.CREATED, created.getStatus());
+    Assertions.assertEquals(jobId, created.getJob().getId());
+    Assertions.assertEquals("000007", created.getJob().getName());
+    var rejected = result.getJobResults().get(1);
+    Assertions.assertEquals(1, rejected.getIndex());
+    Assertions.assertEquals(JobBatchItemStatus.REJECTED, rejected.getStatus());
+    Assertions.assertEquals("Missing required parameters", rejected.getError());
+    verify(repository, never()).getNextJobNumber();
+    verify(jobExecutionService).sendJobCommands(argThat(commands -> commands.size() == 1
+      && jobId.equals(commands.get(0).getId())));
   }
 
   @Test
@@ -122,7 +261,8 @@ class JobServiceTest {
     okapiHeaders.put(XOkapiHeaders.TENANT, List.of("diku"));
     var folioExecutionContext = new DefaultFolioExecutionContext(folioModuleMetadata, okapiHeaders);
     var jobExecutionService = new JobExecutionService(kafka, exportConfigValidatorResolver, jobCommandBuilderResolver, defaultModelConfigToExportConfigConverter, client, objectMapper);
-    var jobService = new JobServiceImpl(exportWorkerClient, jobExecutionService, repository, folioExecutionContext, null, null, client);
+    var jobService = new JobServiceImpl(exportWorkerClient, jobExecutionService, repository, tombstoneRepository, idempotencyKeyRepository, folioExecutionContext, null, null, client,
+      new TransactionTemplate(mock(PlatformTransactionManager.class)), mock(JobResultReuseService.class));
     var config = new ExportConfig();
     config.setId(configId.toString());
     org.folio.des.domain.dto.Job jobDto = new org.folio.des.domain.dto.Job();
@@ -141,6 +281,8 @@ class JobServiceTest {
     assertThrows(NotFoundException.class, () -> jobService.resendExportedFile(configId));
     job.setFileNames(list);
     jobService.resendExportedFile(jobDto.getId());
+    verify(kafka).sendViaOutbox(eq(KafkaService.Topic.JOB_COMMAND), eq(job.getId().toString()), any(JobCommand.class),
+      eq(job.getId()));
     JobCommand command = jobExecutionService.prepareResendJobCommand(job);
     Assertions.assertEquals("TestFile.csv", command.getJobParameters().getParameters().get("FILE_NAME").getValue());
     Assertions.assertNotNull(command.getJobParameters().getParameters().get("EDIFACT_ORDERS_EXPORT"));
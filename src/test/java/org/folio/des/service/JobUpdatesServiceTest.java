@@ -1,59 +1,83 @@
 package org.folio.des.service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
 import org.folio.des.domain.dto.ExportTypeSpecificParameters;
 import org.folio.des.domain.dto.JobStatus;
 import org.folio.de.entity.Job;
 import org.folio.des.domain.dto.Progress;
 import org.folio.des.domain.dto.VendorEdiOrdersExportConfig;
-import org.folio.des.repository.JobDataExportRepository;
+import org.folio.des.repository.JobExecutionUpdateRepository;
+import org.folio.des.repository.JobExecutionUpdateRepository.JobExecutionUpdate;
+import org.folio.des.repository.JobExecutionUpdateRepository.JobExecutionUpdateResult;
+import org.folio.des.scheduling.ExportScheduler;
+import org.folio.spring.FolioModuleMetadata;
+import org.folio.spring.integration.XOkapiHeaders;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.ExitStatus;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class JobUpdatesServiceTest  {
 
+  private static final String TOPIC = "folio.diku.data-export.job.update";
+
+  @Mock
+  private JobExecutionUpdateRepository updateRepository;
+  @Mock
+  private ExportScheduler exportScheduler;
+  @Mock
+  private JobEventsService jobEventsService;
+  @Mock
+  private FolioModuleMetadata folioModuleMetadata;
   @Mock
-  private JobDataExportRepository repository;
+  private TransactionTemplate transactionTemplate;
+  @Spy
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  @Spy
+  private JobProgressDebouncer progressDebouncer = new JobProgressDebouncer(new SimpleMeterRegistry());
   @InjectMocks
   private JobUpdatesService updatesService;
 
   @Test
   @DisplayName("Update job with change")
-    void updateJobWithChange() {
+  void updateJobWithChange() {
     VendorEdiOrdersExportConfig config = new VendorEdiOrdersExportConfig();
     ExportTypeSpecificParameters parameters = new ExportTypeSpecificParameters();
-
-    var id = UUID.randomUUID();
-    Job job = new Job();
-    job.setId(id);
-    job.setBatchStatus(BatchStatus.COMPLETED);
-    job.setStatus(JobStatus.SUCCESSFUL);
-    job.setDescription("Test job");
-    job.setExportTypeSpecificParameters(parameters);
-    job.setProgress(new Progress().progress(100).processed(1).total(1));
-
     config.setConfigName("testConfig");
     parameters.setVendorEdiOrdersExportConfig(config);
 
+    var id = UUID.randomUUID();
     var updatedJob = new Job();
     updatedJob.setId(id);
     updatedJob.setDescription("Test job updated");
@@ -68,12 +92,21 @@ class JobUpdatesServiceTest  {
     updatedJob.setExportTypeSpecificParameters(parameters);
     updatedJob.setProgress(new Progress().progress(100).processed(1).total(1));
 
-    doReturn(Optional.of(job)).when(repository).findById(id);
-    doReturn(job).when(repository).save(any());
+    var result = appliedResult(id, BatchStatus.STARTED, BatchStatus.COMPLETED, JobStatus.SUCCESSFUL);
+    doReturn(Optional.of(result)).when(updateRepository).apply(any());
 
-    updatesService.receiveJobExecutionUpdate(updatedJob);
+    updatesService.receiveJobExecutionUpdate(toRecord(updatedJob, 10L));
 
-    verify(repository, times(1)).save(any());
+    var update = captureUpdates(1).get(0);
+    assertEquals(id, update.getId());
+    assertEquals(10L, update.getSequence());
+    assertEquals("Test job updated", update.getDescription());
+    assertEquals(List.of("new_file.json"), update.getFileNames());
+    assertEquals(JobStatus.SUCCESSFUL, update.getStatus());
+    assertEquals(config, update.getVendorEdiOrdersExportConfig());
+    assertTrue(update.isClearErrorDetails());
+    verify(exportScheduler).nextJob();
+    verify(jobEventsService).publish(any(Job.class));
   }
 
   @Test
@@ -81,73 +114,50 @@ class JobUpdatesServiceTest  {
   void updateJobWithError() {
     VendorEdiOrdersExportConfig config = new VendorEdiOrdersExportConfig();
     ExportTypeSpecificParameters parameters = new ExportTypeSpecificParameters();
-
-    var id = UUID.randomUUID();
-    Job job = new Job();
-    job.setId(id);
-    job.setBatchStatus(BatchStatus.COMPLETED);
-    job.setStatus(JobStatus.SUCCESSFUL);
-    job.setDescription("Test job");
-    job.setStartTime(new Date());
-    job.setEndTime(new Date());
-    job.setExportTypeSpecificParameters(parameters);
-    job.setProgress(new Progress().progress(100).processed(1).total(1));
-
     config.setConfigName("testConfig");
     parameters.setVendorEdiOrdersExportConfig(config);
 
+    var id = UUID.randomUUID();
     var updatedJob = new Job();
     updatedJob.setId(id);
     updatedJob.setDescription("Test job updated");
     updatedJob.setErrorDetails("Something went wrong");
+    updatedJob.setExportTypeSpecificParameters(parameters);
 
-    doReturn(Optional.of(job)).when(repository).findById(id);
-    doReturn(job).when(repository).save(any());
+    var result = appliedResult(id, BatchStatus.STARTED, BatchStatus.STARTED, JobStatus.IN_PROGRESS);
+    doReturn(Optional.of(result)).when(updateRepository).apply(any());
 
-    updatesService.receiveJobExecutionUpdate(updatedJob);
+    updatesService.receiveJobExecutionUpdate(toRecord(updatedJob, 10L));
 
-    verify(repository, times(1)).save(any());
+    var update = captureUpdates(1).get(0);
+    assertEquals("Something went wrong", update.getErrorDetails());
+    assertFalse(update.isClearErrorDetails());
+    assertNull(update.getVendorEdiOrdersExportConfig());
+    assertNull(update.getStatus());
+    verify(exportScheduler, never()).nextJob();
+    verify(jobEventsService).publish(any(Job.class));
   }
 
   @Test
   @DisplayName("Update job without change")
   void updateJobWithoutChange() {
-    ExportTypeSpecificParameters parameters = new ExportTypeSpecificParameters();
     var id = UUID.fromString("9d72fb44-eef7-4b9c-9bd9-f191feec6255");
-    Job job = new Job();
-    job.setId(id);
-    job.setBatchStatus(BatchStatus.COMPLETED);
-    job.setStatus(JobStatus.SUCCESSFUL);
-    job.setDescription("Test job");
-    job.setFiles(List.of("new test files"));
-    job.setFileNames(List.of("new_file.json"));
-    job.setStartTime(new Date());
-    job.setEndTime(new Date());
-    job.setErrorDetails("No errors");
-    job.setExitStatus(ExitStatus.COMPLETED);
-    job.setExportTypeSpecificParameters(parameters);
-    job.setProgress(new Progress().progress(100).processed(1).total(1));
-
     var updatedJob = new Job();
     updatedJob.setId(id);
     updatedJob.setBatchStatus(BatchStatus.COMPLETED);
-    updatedJob.setStatus(JobStatus.SUCCESSFUL);
-    updatedJob.setDescription("Test job updated");
-    updatedJob.setName("Updated job");
-    updatedJob.setFiles(List.of("new test files"));
-    updatedJob.setFileNames(List.of("new_file.json"));
-    updatedJob.setStartTime(new Date());
-    updatedJob.setEndTime(new Date());
-    updatedJob.setErrorDetails("No errors");
-    updatedJob.setExitStatus(ExitStatus.COMPLETED);
-    job.setExportTypeSpecificParameters(parameters);
+    updatedJob.setDescription("Test job");
     updatedJob.setProgress(new Progress().progress(100).processed(1).total(1));
 
-    doReturn(Optional.of(job)).when(repository).findById(id);
+    var result = new JobExecutionUpdateResult();
+    result.setId(id);
+    result.setPreviousBatchStatus(BatchStatus.COMPLETED);
+    doReturn(Optional.of(result)).when(updateRepository).apply(any());
 
-    updatesService.receiveJobExecutionUpdate(updatedJob);
+    updatesService.receiveJobExecutionUpdate(toRecord(updatedJob, 10L));
 
-    verify(repository).save(isA(Job.class));
+    verify(updateRepository).apply(any());
+    verify(exportScheduler, never()).nextJob();
+    verify(jobEventsService, never()).publish(any());
   }
 
   @Test
@@ -157,10 +167,183 @@ class JobUpdatesServiceTest  {
     var updatedJob = new Job();
     updatedJob.setId(id);
 
-    doReturn(Optional.empty()).when(repository).findById(id);
+    doReturn(Optional.empty()).when(updateRepository).apply(any());
+
+    updatesService.receiveJobExecutionUpdate(toRecord(updatedJob, 10L));
+
+    verify(jobEventsService, never()).publish(any());
+  }
+
+  @Test
+  @DisplayName("Stale update is discarded and counted")
+  void staleUpdate() {
+    var id = UUID.randomUUID();
+    var updatedJob = new Job();
+    updatedJob.setId(id);
+    updatedJob.setBatchStatus(BatchStatus.STARTED);
+
+    var result = new JobExecutionUpdateResult();
+    result.setId(id);
+    result.setStale(true);
+    doReturn(Optional.of(result)).when(updateRepository).apply(any());
+
+    updatesService.receiveJobExecutionUpdate(toRecord(updatedJob, 10L));
+
+    assertEquals(1.0, meterRegistry.counter("job.updates.stale").count());
+    verify(exportScheduler, never()).nextJob();
+    verify(jobEventsService, never()).publish(any());
+  }
 
-    updatesService.receiveJobExecutionUpdate(updatedJob);
+  @Test
+  @DisplayName("Merge the updates of a batch by job")
+  void updateJobsFromBatch() {
+    var id = UUID.randomUUID();
+    var progressUpdate = new Job();
+    progressUpdate.setId(id);
+    progressUpdate.setBatchStatus(BatchStatus.STARTED);
+    progressUpdate.setProgress(new Progress().progress(50).processed(1).total(2));
+    var descriptionUpdate = new Job();
+    descriptionUpdate.setId(id);
+    descriptionUpdate.setDescription("Test job updated");
+    descriptionUpdate.setProgress(new Progress().progress(100).processed(2).total(2));
+    var unknownJobUpdate = new Job();
+    unknownJobUpdate.setId(UUID.randomUUID());
+    unknownJobUpdate.setDescription("Unknown job");
+
+    var records = List.of(toRecord(progressUpdate, 10L), toRecord(descriptionUpdate, 20L), toRecord(unknownJobUpdate, 15L));
+
+    var result = appliedResult(id, BatchStatus.STARTING, BatchStatus.STARTED, JobStatus.IN_PROGRESS);
+    doReturn(Optional.of(result)).when(updateRepository).apply(any());
+    doAnswer(invocation -> {
+      invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+      return null;
+    }).when(transactionTemplate).executeWithoutResult(any());
+
+    updatesService.receiveJobExecutionUpdates(records);
+
+    var updates = captureUpdates(2);
+    assertEquals(id, updates.get(0).getId());
+    assertEquals(20L, updates.get(0).getSequence());
+    assertEquals("Test job updated", updates.get(0).getDescription());
+    assertEquals(BatchStatus.STARTED, updates.get(0).getBatchStatus());
+    assertEquals(100, updates.get(0).getProgress().getProgress());
+    assertEquals("Unknown job", updates.get(1).getDescription());
+    verify(jobEventsService, times(2)).publish(any(Job.class));
+  }
+
+  @Test
+  @DisplayName("Merge the updates of a job in timestamp order")
+  void mergeUpdatesByTimestamp() {
+    var id = UUID.randomUUID();
+    var completed = new Job();
+    completed.setId(id);
+    completed.setBatchStatus(BatchStatus.COMPLETED);
+    var started = new Job();
+    started.setId(id);
+    started.setBatchStatus(BatchStatus.STARTED);
+    started.setDescription("Started");
+
+    // the older record is received after the newer one
+    var records = List.of(toRecord(completed, 20L), toRecord(started, 10L));
+
+    var result = appliedResult(id, BatchStatus.STARTED, BatchStatus.COMPLETED, JobStatus.SUCCESSFUL);
+    doReturn(Optional.of(result)).when(updateRepository).apply(any());
+    doAnswer(invocation -> {
+      invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+      return null;
+    }).when(transactionTemplate).executeWithoutResult(any());
+
+    updatesService.receiveJobExecutionUpdates(records);
+
+    var updates = captureUpdates(1);
+    assertEquals(20L, updates.get(0).getSequence());
+    assertEquals(BatchStatus.COMPLETED, updates.get(0).getBatchStatus());
+    assertEquals(JobStatus.SUCCESSFUL, updates.get(0).getStatus());
+    assertEquals("Started", updates.get(0).getDescription());
+  }
+
+  @Test
+  @DisplayName("Progress is debounced and flushed")
+  void debounceProgress() {
+    var id = UUID.randomUUID();
+    var firstProgress = new Job();
+    firstProgress.setId(id);
+    firstProgress.setProgress(new Progress().progress(10).processed(1).total(10));
+    var secondProgress = new Job();
+    secondProgress.setId(id);
+    secondProgress.setProgress(new Progress().progress(20).processed(2).total(10));
+
+    updatesService.receiveJobExecutionUpdate(toRecord(firstProgress, 10L));
+    updatesService.receiveJobExecutionUpdate(toRecord(secondProgress, 20L));
+
+    verify(updateRepository, never()).apply(any());
+    assertEquals(1, progressDebouncer.getPendingCount());
+
+    var result = new JobExecutionUpdateResult();
+    result.setId(id);
+    result.setApplied(true);
+    result.setStatus(JobStatus.IN_PROGRESS);
+    doReturn(Optional.of(result)).when(updateRepository).apply(any());
+    doAnswer(invocation -> {
+      invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+      return null;
+    }).when(transactionTemplate).executeWithoutResult(any());
+
+    updatesService.flushProgress();
+
+    var update = captureUpdates(1).get(0);
+    assertEquals(20L, update.getSequence());
+    assertEquals(20, update.getProgress().getProgress());
+    assertEquals(0, progressDebouncer.getPendingCount());
+    verify(jobEventsService).publish(any(Job.class));
+  }
+
+  @Test
+  @DisplayName("Final status is written at once with the pending progress")
+  void flushProgressWithFinalStatus() {
+    var id = UUID.randomUUID();
+    var progressUpdate = new Job();
+    progressUpdate.setId(id);
+    progressUpdate.setProgress(new Progress().progress(100).processed(10).total(10));
+    var completedUpdate = new Job();
+    completedUpdate.setId(id);
+    completedUpdate.setBatchStatus(BatchStatus.COMPLETED);
+
+    var result = appliedResult(id, BatchStatus.STARTED, BatchStatus.COMPLETED, JobStatus.SUCCESSFUL);
+    doReturn(Optional.of(result)).when(updateRepository).apply(any());
+
+    updatesService.receiveJobExecutionUpdate(toRecord(progressUpdate, 10L));
+    updatesService.receiveJobExecutionUpdate(toRecord(completedUpdate, 20L));
+
+    var update = captureUpdates(1).get(0);
+    assertEquals(JobStatus.SUCCESSFUL, update.getStatus());
+    assertEquals(100, update.getProgress().getProgress());
+    assertEquals(0, progressDebouncer.getPendingCount());
+    verify(exportScheduler).nextJob();
+  }
+
+  private List<JobExecutionUpdate> captureUpdates(int count) {
+    var captor = ArgumentCaptor.forClass(JobExecutionUpdate.class);
+    verify(updateRepository, times(count)).apply(captor.capture());
+    return captor.getAllValues();
+  }
+
+  private static JobExecutionUpdateResult appliedResult(UUID id, BatchStatus previousBatchStatus, BatchStatus batchStatus,
+      JobStatus status) {
+    var result = new JobExecutionUpdateResult();
+    result.setId(id);
+    result.setApplied(true);
+    result.setChanged(true);
+    result.setPreviousBatchStatus(previousBatchStatus);
+    result.setBatchStatus(batchStatus);
+    result.setStatus(status);
+    return result;
+  }
 
-    verify(repository, never()).save(any());
+  private static ConsumerRecord<String, Job> toRecord(Job update, long timestamp) {
+    var headers = new RecordHeaders();
+    headers.add(XOkapiHeaders.TENANT, "diku".getBytes(StandardCharsets.UTF_8));
+    return new ConsumerRecord<>(TOPIC, 0, 0L, timestamp, TimestampType.CREATE_TIME, 0, 0, update.getId().toString(),
+      update, headers, Optional.empty());
   }
 }
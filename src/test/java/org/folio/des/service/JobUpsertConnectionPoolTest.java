@@ -0,0 +1,122 @@
+package org.folio.des.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static org.folio.des.service.config.ExportConfigConstants.DEFAULT_MODULE_NAME;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.log4j.Log4j2;
+import org.folio.des.domain.dto.ExportType;
+import org.folio.des.domain.dto.ExportTypeSpecificParameters;
+import org.folio.des.domain.dto.Job;
+import org.folio.des.domain.dto.ModelConfiguration;
+import org.folio.des.domain.dto.VendorEdiOrdersExportConfig;
+import org.folio.des.support.BaseTest;
+import org.folio.spring.DefaultFolioExecutionContext;
+import org.folio.spring.FolioModuleMetadata;
+import org.folio.spring.integration.XOkapiHeaders;
+import org.folio.spring.scope.FolioExecutionScopeExecutionContextManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
+
+/**
+ * Load test of job upserts while mod-configuration answers slowly: the configuration lookup must not hold database
+ * connections, so the pool is not exhausted by requests waiting for the remote module.
+ */
+@Log4j2
+@Sql(executionPhase = ExecutionPhase.AFTER_TEST_METHOD, scripts = "classpath:clearDb.sql")
+class JobUpsertConnectionPoolTest extends BaseTest {
+
+  private static final int CONFIGURATION_LATENCY_MILLIS = 1000;
+
+  @Autowired
+  private JobService jobService;
+  @Autowired
+  private FolioModuleMetadata folioModuleMetadata;
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Test
+  void slowConfigurationLookupDoesNotExhaustConnectionPool() throws Exception {
+    var configuration = new ModelConfiguration();
+    configuration.setModule(DEFAULT_MODULE_NAME);
+    configuration.setConfigName("EDIFACT_ORDERS_EXPORT");
+    var stub = wireMockServer.stubFor(WireMock.get(urlPathMatching("/configurations/entries/.*"))
+      .willReturn(aResponse().withBody(asJsonString(configuration))
+        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+        .withFixedDelay(CONFIGURATION_LATENCY_MILLIS)));
+
+    var maxConnections = (int) meterRegistry.get("hikaricp.connections.max").gauge().value();
+    var requests = maxConnections * 2;
+    var peakActive = new AtomicInteger();
+    var sampling = new AtomicBoolean(true);
+    var executor = Executors.newFixedThreadPool(requests + 1);
+    try {
+      executor.submit(() -> {
+        while (sampling.get()) {
+          var active = (int) meterRegistry.get("hikaricp.connections.active").gauge().value();
+          peakActive.accumulateAndGet(active, Math::max);
+          Thread.sleep(5);
+        }
+        return null;
+      });
+
+      var start = System.nanoTime();
+      List<Future<Job>> upserts = new ArrayList<>();
+      for (int i = 0; i < requests; i++) {
+        upserts.add(executor.submit(this::upsertEdifactJob));
+      }
+      for (Future<Job> upsert : upserts) {
+        assertTrue(upsert.get(30, TimeUnit.SECONDS).getId() != null);
+      }
+      var elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      sampling.set(false);
+
+      log.info("{} upserts with {} ms configuration latency took {} ms, peak {} of {} connections in use", requests,
+        CONFIGURATION_LATENCY_MILLIS, elapsedMillis, peakActive.get(), maxConnections);
+      assertTrue(peakActive.get() < maxConnections,
+        "Peak of " + peakActive.get() + " connections in use, the pool has " + maxConnections);
+      assertEquals(0, (int) meterRegistry.get("hikaricp.connections.pending").gauge().value());
+    } finally {
+      sampling.set(false);
+      executor.shutdownNow();
+      wireMockServer.removeStub(stub);
+    }
+  }
+
+  private Job upsertEdifactJob() {
+    Map<String, Collection<String>> okapiHeaders = Map.of(XOkapiHeaders.TENANT, List.of(TENANT),
+      XOkapiHeaders.URL, List.of(wireMockServer.baseUrl()), XOkapiHeaders.TOKEN, List.of(TOKEN));
+    FolioExecutionScopeExecutionContextManager.beginFolioExecutionContext(
+      new DefaultFolioExecutionContext(folioModuleMetadata, okapiHeaders));
+    try {
+      var config = new VendorEdiOrdersExportConfig();
+      config.setExportConfigId(UUID.randomUUID());
+      var parameters = new ExportTypeSpecificParameters();
+      parameters.setVendorEdiOrdersExportConfig(config);
+      var job = new Job();
+      job.setType(ExportType.EDIFACT_ORDERS_EXPORT);
+      job.setExportTypeSpecificParameters(parameters);
+      return jobService.upsertAndSendToKafka(job, false);
+    } finally {
+      FolioExecutionScopeExecutionContextManager.endFolioExecutionContext();
+    }
+  }
+}
@@ -10,11 +10,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import java.util.List;
 import lombok.SneakyThrows;
+import org.folio.des.client.CachingConfigurationClient;
 import org.folio.des.scheduling.ExportTrigger;
 import org.folio.spring.integration.XOkapiHeaders;
 import org.folio.tenant.domain.dto.TenantAttributes;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -32,7 +34,8 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+  "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}"})
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @ContextConfiguration(initializers = BaseTest.DockerPostgreDataSourceInitializer.class)
 @AutoConfigureMockMvc
@@ -50,6 +53,8 @@ public abstract class BaseTest {
 
   @Autowired
   protected MockMvc mockMvc;
+  @Autowired
+  private CachingConfigurationClient configurationClient;
   @MockBean
   protected ExportTrigger trigger;
 
@@ -76,6 +81,12 @@ public abstract class BaseTest {
     setUpTenant(mockMvc);
   }
 
+  @BeforeEach
+  void clearConfigurationCache() {
+    // the tests stub mod-configuration differently for the same entries
+    configurationClient.invalidateAll();
+  }
+
   @SneakyThrows
   protected static void setUpTenant(MockMvc mockMvc) {
     mockMvc.perform(post("/_/tenant").content(asJsonString(new TenantAttributes().moduleTo("mod-data-export-spring")))
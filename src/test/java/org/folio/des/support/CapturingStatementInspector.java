@@ -0,0 +1,25 @@
+package org.folio.des.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Records the SQL statements Hibernate prepares on the current thread.
+ */
+public class CapturingStatementInspector implements StatementInspector {
+
+  private static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+  @Override
+  public String inspect(String sql) {
+    STATEMENTS.get().add(sql);
+    return sql;
+  }
+
+  public static List<String> drain() {
+    var statements = List.copyOf(STATEMENTS.get());
+    STATEMENTS.get().clear();
+    return statements;
+  }
+}
@@ -14,6 +14,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import org.folio.des.domain.ResultPage;
 import org.folio.des.domain.dto.BursarExportFilter;
 import org.folio.des.domain.dto.BursarExportFilterAge;
 import org.folio.des.domain.dto.BursarExportFilterCondition;
@@ -71,8 +72,8 @@ class LegacyBursarMigrationUtilTest {
     legacyJobs.add(nonLegacyJob);
 
     Mockito
-      .when(bursarExportLegacyJobService.get(0, 10000, "status==SCHEDULED"))
-      .thenReturn(mockLegacyJobCollectionOneItem(legacyJobs));
+      .when(bursarExportLegacyJobService.getAfter("", 10000, "status==SCHEDULED"))
+      .thenReturn(new ResultPage<>(mockLegacyJobCollectionOneItem(legacyJobs), null));
 
     LegacyBursarMigrationUtil.recreateLegacyJobs(
       bursarExportLegacyJobService,
@@ -130,8 +131,8 @@ class LegacyBursarMigrationUtilTest {
       .setFilter(filterBase);
 
     Mockito
-      .when(bursarExportLegacyJobService.get(0, 10000, "status==SCHEDULED"))
-      .thenReturn(mockLegacyJobCollectionOneItem(legacyJobs));
+      .when(bursarExportLegacyJobService.getAfter("", 10000, "status==SCHEDULED"))
+      .thenReturn(new ResultPage<>(mockLegacyJobCollectionOneItem(legacyJobs), null));
 
     LegacyBursarMigrationUtil.recreateLegacyJobs(
       bursarExportLegacyJobService,
@@ -187,11 +188,11 @@ class LegacyBursarMigrationUtilTest {
     legacyJobCollection.setTotalRecords(2);
 
     Mockito
-      .when(bursarExportLegacyJobService.get(0, 10000, "status==SCHEDULED"))
-      .thenReturn(legacyJobCollection);
+      .when(bursarExportLegacyJobService.getAfter("", 10000, "status==SCHEDULED"))
+      .thenReturn(new ResultPage<>(legacyJobCollection, "next"));
     Mockito
-      .when(bursarExportLegacyJobService.get(1, 10000, "status==SCHEDULED"))
-      .thenReturn(legacyJobCollection);
+      .when(bursarExportLegacyJobService.getAfter("next", 10000, "status==SCHEDULED"))
+      .thenReturn(new ResultPage<>(legacyJobCollection, null));
 
     LegacyBursarMigrationUtil.recreateLegacyJobs(
       bursarExportLegacyJobService,
@@ -200,7 +201,7 @@ class LegacyBursarMigrationUtilTest {
 
     Mockito
       .verify(bursarExportLegacyJobService, times(2))
-      .get(any(), eq(10000), eq("status==SCHEDULED"));
+      .getAfter(any(), eq(10000), eq("status==SCHEDULED"));
     Mockito.verify(jobService, times(2)).upsertAndSendToKafka(job, true);
   }
 
@@ -1 +1,5 @@
+DELETE FROM diku_mod_data_export_spring.job_idempotency_key;
+DELETE FROM diku_mod_data_export_spring.job_progress;
 DELETE FROM diku_mod_data_export_spring.job;
+DELETE FROM diku_mod_data_export_spring.job_tombstone;
+DELETE FROM diku_mod_data_export_spring.job_command_outbox;